@@ -11,6 +11,8 @@ import domain.value.ActivityWindow;
 import domain.value.Money;
 import exception.InsufficientFundsException;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 import java.util.stream.Stream;
 
 /**
@@ -65,7 +67,7 @@ public final class Account {
      * Factory method. This will use the passed activity window to calculate balance.
      *
      * @param id Account Id.
-     * @param starting Starting balance.
+     * @param starting Balance at the start of the activity window.
      * @param window Activity window
      * @return Account instance.
      * @since 1.0
@@ -101,6 +103,30 @@ public final class Account {
                 .minus(this.window.withdrawnFromAccount(this.id));
     }
 
+    /**
+     * Account balance at a point in time.
+     *
+     * <p>A datetime before the activity window rolls the starting balance back through the
+     * activities before the window, which are fetched for it.
+     *
+     * @param datetime Datetime, activities at that exact time are included.
+     * @return Account balance.
+     * @since 1.0
+     */
+    public Money balance(final LocalDateTime datetime) {
+        return this.starting.plus(this.window.movedUntil(this.id, datetime));
+    }
+
+    /**
+     * Account balance after each activity within the activity window.
+     *
+     * @return Activity timestamps paired with the balance after them, in time order.
+     * @since 1.0
+     */
+    public List<Map.Entry<LocalDateTime, Money>> balances() {
+        return this.window.balances(this.id, this.starting);
+    }
+
     /**
      * Activities from the activity window that happened after the provided datetime.
      *
@@ -187,8 +213,8 @@ public final class Account {
      */
     private void canWithdraw(final Money money) throws InsufficientFundsException {
         PreConditions.require(
-            this.balance().minus(money),
-            Money::isPositiveOrZero,
+            this.balance(),
+            balance -> balance.covers(money),
             InsufficientFundsException::new
         );
     }
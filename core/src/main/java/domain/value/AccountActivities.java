@@ -0,0 +1,500 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package domain.value;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Activities of a single account inside an activity window.
+ *
+ * <p>Activities are kept in parallel primitive columns (epoch micros, minor units,
+ * counterparty index and direction) that grow in chunks, and are only turned back into
+ * {@link Activity} objects when they are read. Rows are ordered by timestamp, so that
+ * everything that happened since a point in time is found with a binary search.
+ * Running totals of the money deposited into and withdrawn from the account since the
+ * window start are kept as well, so that balance checks do not need to scan, along
+ * with a prefix sum of the net amount moved, so that the balance at any point in time is
+ * one binary search away.
+ *
+ * <p>Adding an activity in time order is amortized constant time. Adding an older one shifts
+ * the later rows, in linear time, and leaves the prefix sums from its row on stale. Stale
+ * prefix sums are rebuilt once, the next time a balance is read, so that a batch of late
+ * activities costs one rebuild.
+ *
+ * @since 1.0
+ */
+@SuppressWarnings("PMD.TooManyMethods")
+final class AccountActivities {
+
+    /**
+     * Number of rows the columns grow by at least.
+     */
+    private static final int CHUNK = 64;
+
+    /**
+     * Direction flag of money moved into the account.
+     */
+    private static final byte INCOMING = 1;
+
+    /**
+     * Direction flag of money moved out of the account.
+     */
+    private static final byte OUTGOING = 2;
+
+    /**
+     * Microseconds in a second.
+     */
+    private static final long SECOND = 1_000_000L;
+
+    /**
+     * Nanoseconds in a microsecond.
+     */
+    private static final int NANOS = 1_000;
+
+    /**
+     * Interned account ids of the window.
+     */
+    private final AccountIds ids;
+
+    /**
+     * Index of this account in the interned ids.
+     */
+    private final int account;
+
+    /**
+     * Window start in epoch micros, activities before it are not part of the totals.
+     */
+    private final long start;
+
+    /**
+     * Activity timestamps in epoch micros.
+     */
+    private long[] times;
+
+    /**
+     * Activity amounts in minor units.
+     */
+    private long[] amounts;
+
+    /**
+     * Counterparty indexes in the interned ids.
+     */
+    private int[] others;
+
+    /**
+     * Direction flags.
+     */
+    private byte[] directions;
+
+    /**
+     * Net minor units moved into the account by all rows up to and including this one.
+     */
+    private long[] nets;
+
+    /**
+     * Number of stored activities.
+     */
+    private int size;
+
+    /**
+     * First row whose prefix sum is stale, the number of rows if none is.
+     */
+    private int stale;
+
+    /**
+     * Minor units deposited into the account since the window start.
+     */
+    private long credits;
+
+    /**
+     * Minor units withdrawn from the account since the window start.
+     */
+    private long debits;
+
+    /**
+     * Main constructor.
+     *
+     * @param ids Interned account ids of the window.
+     * @param account Account Id.
+     * @param start Window start.
+     */
+    AccountActivities(final AccountIds ids, final AccountId account, final LocalDateTime start) {
+        this.ids = ids;
+        this.account = ids.intern(account);
+        this.start = AccountActivities.micros(start);
+        this.times = new long[0];
+        this.amounts = new long[0];
+        this.others = new int[0];
+        this.directions = new byte[0];
+        this.nets = new long[0];
+    }
+
+    /**
+     * Add an activity and update the running totals.
+     *
+     * @param activity Activity.
+     */
+    void add(final Activity activity) {
+        final int source = this.ids.intern(activity.source);
+        final int target = this.ids.intern(activity.target);
+        final byte direction = this.direction(source, target);
+        if (this.size == this.times.length) {
+            this.grow();
+        }
+        final long time = AccountActivities.micros(activity.timestamp);
+        final long units = activity.money.minorUnits();
+        final int row = this.lowerBound(time + 1);
+        if (row < this.size) {
+            this.shift(row);
+        }
+        this.times[row] = time;
+        this.amounts[row] = units;
+        this.others[row] = AccountActivities.counterparty(direction, source, target);
+        this.directions[row] = direction;
+        if (row == this.size && this.stale == this.size) {
+            this.nets[row] =
+                Math.addExact(this.prefix(row), AccountActivities.net(direction, units));
+            this.stale += 1;
+        } else {
+            this.stale = Math.min(this.stale, row);
+        }
+        this.size += 1;
+        this.total(time, direction, units);
+    }
+
+    /**
+     * Amount deposited into the account after the given datetime.
+     *
+     * @param datetime Datetime.
+     * @return Amount of money.
+     */
+    Money deposited(final LocalDateTime datetime) {
+        final long since = AccountActivities.micros(datetime);
+        final long result;
+        if (since == this.start) {
+            result = this.credits;
+        } else {
+            result = this.sum(since, AccountActivities.INCOMING);
+        }
+        return Money.inMinorUnits(result);
+    }
+
+    /**
+     * Amount withdrawn from the account after the given datetime.
+     *
+     * @param datetime Datetime.
+     * @return Amount of money.
+     */
+    Money withdrawn(final LocalDateTime datetime) {
+        final long since = AccountActivities.micros(datetime);
+        final long result;
+        if (since == this.start) {
+            result = this.debits;
+        } else {
+            result = this.sum(since, AccountActivities.OUTGOING);
+        }
+        return Money.inMinorUnits(result);
+    }
+
+    /**
+     * Net amount moved into the account from the window start up to a datetime.
+     *
+     * @param datetime Datetime, inclusive.
+     * @return Amount of money. If the datetime is before the window start, the opposite of
+     *  the amount moved by the rows between them, which are already part of the balance.
+     */
+    Money netUntil(final LocalDateTime datetime) {
+        final long until = AccountActivities.micros(datetime);
+        this.settle();
+        return
+            Money.inMinorUnits(
+                Math.subtractExact(
+                    this.prefix(this.lowerBound(until + 1)),
+                    this.prefix(this.lowerBound(this.start))
+                )
+            );
+    }
+
+    /**
+     * Balance of the account after each of its activities since the window start.
+     *
+     * @param starting Balance at the window start.
+     * @return Activity timestamps paired with the balance after them, in time order. Activities
+     *  at the same time each keep their own entry.
+     */
+    List<Map.Entry<LocalDateTime, Money>> balances(final Money starting) {
+        this.settle();
+        final int first = this.lowerBound(this.start);
+        final List<Map.Entry<LocalDateTime, Money>> balances = new ArrayList<>(this.size - first);
+        final long base = Math.subtractExact(starting.minorUnits(), this.prefix(first));
+        for (int row = first; row < this.size; row += 1) {
+            balances.add(
+                new AbstractMap.SimpleImmutableEntry<>(
+                    AccountActivities.datetime(this.times[row]),
+                    Money.inMinorUnits(Math.addExact(base, this.nets[row]))
+                )
+            );
+        }
+        return balances;
+    }
+
+    /**
+     * All activities of the account.
+     *
+     * @return Stream of activities.
+     */
+    Stream<Activity> all() {
+        return IntStream.range(0, this.size).mapToObj(this::activity);
+    }
+
+    /**
+     * Activities of the account that happened after the given datetime.
+     *
+     * @param datetime Datetime.
+     * @return Stream of activities.
+     */
+    Stream<Activity> since(final LocalDateTime datetime) {
+        final long since = AccountActivities.micros(datetime);
+        return IntStream.range(this.lowerBound(since), this.size).mapToObj(this::activity);
+    }
+
+    /**
+     * Direction flags of an activity for this account.
+     *
+     * @param source Source index in the interned ids.
+     * @param target Target index in the interned ids.
+     * @return Direction flags, both of them for a transfer to itself.
+     */
+    private byte direction(final int source, final int target) {
+        byte direction = 0;
+        if (target == this.account) {
+            direction |= AccountActivities.INCOMING;
+        }
+        if (source == this.account) {
+            direction |= AccountActivities.OUTGOING;
+        }
+        return direction;
+    }
+
+    /**
+     * Add an activity to the running totals if it happened since the window start.
+     *
+     * @param time Epoch micros.
+     * @param direction Direction flags.
+     * @param units Amount in minor units.
+     */
+    private void total(final long time, final byte direction, final long units) {
+        if (time >= this.start) {
+            if ((direction & AccountActivities.INCOMING) != 0) {
+                this.credits = Math.addExact(this.credits, units);
+            }
+            if ((direction & AccountActivities.OUTGOING) != 0) {
+                this.debits = Math.addExact(this.debits, units);
+            }
+        }
+    }
+
+    /**
+     * Sum the amounts moved in a direction since a point in time.
+     *
+     * @param since Epoch micros.
+     * @param direction Direction flag.
+     * @return Minor units.
+     */
+    private long sum(final long since, final byte direction) {
+        long total = 0;
+        for (int row = this.lowerBound(since); row < this.size; row += 1) {
+            if ((this.directions[row] & direction) != 0) {
+                total = Math.addExact(total, this.amounts[row]);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Net minor units moved by the rows before an index.
+     *
+     * @param row Row index.
+     * @return Minor units.
+     */
+    private long prefix(final int row) {
+        final long result;
+        if (row == 0) {
+            result = 0L;
+        } else {
+            result = this.nets[row - 1];
+        }
+        return result;
+    }
+
+    /**
+     * Rebuild the stale prefix sums.
+     */
+    private void settle() {
+        for (int row = this.stale; row < this.size; row += 1) {
+            this.nets[row] =
+                Math.addExact(
+                    this.prefix(row),
+                    AccountActivities.net(this.directions[row], this.amounts[row])
+                );
+        }
+        this.stale = this.size;
+    }
+
+    /**
+     * First row that happened at or after a point in time.
+     *
+     * @param since Epoch micros.
+     * @return Row index, or the number of rows if all happened before.
+     */
+    private int lowerBound(final long since) {
+        int low = 0;
+        int high = this.size;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (this.times[mid] < since) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Shift the rows starting at an index one place to the right, but for their prefix sums,
+     * which are stale from that index on.
+     *
+     * @param row Row index.
+     */
+    private void shift(final int row) {
+        final int count = this.size - row;
+        System.arraycopy(this.times, row, this.times, row + 1, count);
+        System.arraycopy(this.amounts, row, this.amounts, row + 1, count);
+        System.arraycopy(this.others, row, this.others, row + 1, count);
+        System.arraycopy(this.directions, row, this.directions, row + 1, count);
+    }
+
+    /**
+     * Materialize an activity from a row of the columns.
+     *
+     * @param row Row index.
+     * @return Activity.
+     */
+    private Activity activity(final int row) {
+        final byte direction = this.directions[row];
+        final AccountId self = this.ids.get(this.account);
+        final AccountId other = this.ids.get(this.others[row]);
+        final AccountId source;
+        if ((direction & AccountActivities.OUTGOING) == 0) {
+            source = other;
+        } else {
+            source = self;
+        }
+        final AccountId target;
+        if ((direction & AccountActivities.INCOMING) == 0) {
+            target = other;
+        } else {
+            target = self;
+        }
+        return
+            Activity.with(
+                source,
+                target,
+                AccountActivities.datetime(this.times[row]),
+                Money.inMinorUnits(this.amounts[row])
+            );
+    }
+
+    /**
+     * Grow the columns by a chunk.
+     */
+    private void grow() {
+        final int capacity =
+            this.times.length + Math.max(AccountActivities.CHUNK, this.times.length >> 1);
+        this.times = Arrays.copyOf(this.times, capacity);
+        this.amounts = Arrays.copyOf(this.amounts, capacity);
+        this.others = Arrays.copyOf(this.others, capacity);
+        this.directions = Arrays.copyOf(this.directions, capacity);
+        this.nets = Arrays.copyOf(this.nets, capacity);
+    }
+
+    /**
+     * Counterparty of an activity for this account.
+     *
+     * @param direction Direction flags.
+     * @param source Source index in the interned ids.
+     * @param target Target index in the interned ids.
+     * @return Counterparty index, this account for a transfer to itself.
+     */
+    private static int counterparty(final byte direction, final int source, final int target) {
+        int counterparty = AccountIds.NONE;
+        if ((direction & AccountActivities.INCOMING) != 0) {
+            counterparty = source;
+        }
+        if ((direction & AccountActivities.OUTGOING) != 0) {
+            counterparty = target;
+        }
+        return counterparty;
+    }
+
+    /**
+     * Net minor units moved into the account by a row.
+     *
+     * @param direction Direction flags.
+     * @param units Amount in minor units.
+     * @return Minor units, negative if money left the account.
+     */
+    private static long net(final byte direction, final long units) {
+        long net = 0L;
+        if ((direction & AccountActivities.INCOMING) != 0) {
+            net = Math.addExact(net, units);
+        }
+        if ((direction & AccountActivities.OUTGOING) != 0) {
+            net = Math.subtractExact(net, units);
+        }
+        return net;
+    }
+
+    /**
+     * Convert a datetime to epoch micros.
+     *
+     * @param datetime Datetime.
+     * @return Epoch micros.
+     */
+    private static long micros(final LocalDateTime datetime) {
+        return
+            Math.addExact(
+                Math.multiplyExact(
+                    datetime.toEpochSecond(ZoneOffset.UTC),
+                    AccountActivities.SECOND
+                ),
+                datetime.getNano() / AccountActivities.NANOS
+            );
+    }
+
+    /**
+     * Convert epoch micros to a datetime.
+     *
+     * @param micros Epoch micros.
+     * @return Datetime.
+     */
+    private static LocalDateTime datetime(final long micros) {
+        return
+            LocalDateTime.ofEpochSecond(
+                Math.floorDiv(micros, AccountActivities.SECOND),
+                (int) Math.floorMod(micros, AccountActivities.SECOND) * AccountActivities.NANOS,
+                ZoneOffset.UTC
+            );
+    }
+}
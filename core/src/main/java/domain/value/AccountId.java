@@ -18,7 +18,7 @@ public final class AccountId {
     /**
      * UUID as Id.
      */
-    private final UUID uuid;
+    private final UUID value;
 
     /**
      * Main constructor.
@@ -26,7 +26,7 @@ public final class AccountId {
      * @param uuid UUID.
      */
     private AccountId(final UUID uuid) {
-        this.uuid = uuid;
+        this.value = uuid;
     }
 
     /**
@@ -50,9 +50,30 @@ public final class AccountId {
         return new AccountId(UUID.fromString(uuid));
     }
 
+    /**
+     * Account Id using the uuid.
+     *
+     * @param uuid UUID.
+     * @return Account Id.
+     * @since 1.0
+     */
+    public static AccountId with(final UUID uuid) {
+        return new AccountId(uuid);
+    }
+
+    /**
+     * UUID of the account Id.
+     *
+     * @return UUID.
+     * @since 1.0
+     */
+    public UUID uuid() {
+        return this.value;
+    }
+
     @Override
     public String toString() {
-        return this.uuid.toString();
+        return this.value.toString();
     }
 
     @Override
@@ -65,13 +86,13 @@ public final class AccountId {
             result = false;
         } else {
             final AccountId another = (AccountId) other;
-            result = Objects.equals(this.uuid, another.uuid);
+            result = Objects.equals(this.value, another.value);
         }
         return result;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(this.uuid);
+        return Objects.hash(this.value);
     }
 }
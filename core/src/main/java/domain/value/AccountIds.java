@@ -0,0 +1,88 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package domain.value;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Interned account ids of an activity window.
+ *
+ * <p>Each distinct account id is stored once and referred to by its index, so that
+ * activity columns only need to keep an int per counterparty.
+ *
+ * @since 1.0
+ */
+final class AccountIds {
+
+    /**
+     * Index used for a missing account.
+     */
+    static final int NONE = -1;
+
+    /**
+     * Number of account ids the table is sized for at first.
+     */
+    private static final int CAPACITY = 16;
+
+    /**
+     * Account ids by index.
+     */
+    private final List<AccountId> ids;
+
+    /**
+     * Indexes by account id.
+     */
+    private final Map<AccountId, Integer> indexes;
+
+    /**
+     * Main constructor.
+     */
+    AccountIds() {
+        this.ids = new ArrayList<>(AccountIds.CAPACITY);
+        this.indexes = new HashMap<>();
+    }
+
+    /**
+     * Index of an account id, adding it to the table if needed.
+     *
+     * @param account Account Id. Can be null.
+     * @return Index or {@link #NONE} if account is null.
+     */
+    int intern(final AccountId account) {
+        final int index;
+        if (Objects.isNull(account)) {
+            index = AccountIds.NONE;
+        } else {
+            index = this.indexes.computeIfAbsent(
+                account,
+                acc -> {
+                    this.ids.add(acc);
+                    return this.ids.size() - 1;
+                }
+            );
+        }
+        return index;
+    }
+
+    /**
+     * Account id at an index.
+     *
+     * @param index Index.
+     * @return Account Id or null if index is {@link #NONE}.
+     */
+    AccountId get(final int index) {
+        final AccountId account;
+        if (index == AccountIds.NONE) {
+            account = null;
+        } else {
+            account = this.ids.get(index);
+        }
+        return account;
+    }
+}
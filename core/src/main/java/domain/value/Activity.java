@@ -6,11 +6,15 @@ package domain.value;
 
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
 import java.util.Objects;
 
 /**
  * Activity value object.
  *
+ * <p>The timestamp is truncated to microseconds, the precision activities are stored with,
+ * so that an activity read back is equal to the one that was stored.
+ *
  * @since 1.0
  */
 @SuppressWarnings("PMD.ProhibitPublicStaticMethods")
@@ -37,7 +41,7 @@ public final class Activity implements Comparable<Activity> {
     public final Money money;
 
     /**
-     * Activity timestamp.
+     * Activity timestamp, truncated to microseconds.
      *
      * @checkstyle VisibilityModifierCheck (3 lines)
      */
@@ -48,7 +52,7 @@ public final class Activity implements Comparable<Activity> {
      *
      * @param source Source account. Can be null.
      * @param target Target account. Can be null.
-     * @param datetime Activity timestamp.
+     * @param datetime Activity timestamp, truncated to microseconds.
      * @param money Amount of money.
      * @checkstyle ParameterNumberCheck (3 lines)
      */
@@ -61,7 +65,7 @@ public final class Activity implements Comparable<Activity> {
         this.source = source;
         this.target = target;
         this.money = money;
-        this.timestamp = datetime;
+        this.timestamp = datetime.truncatedTo(ChronoUnit.MICROS);
     }
 
     /**
@@ -5,13 +5,13 @@
 package domain.value;
 
 import java.time.LocalDateTime;
-import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 /**
@@ -22,28 +22,53 @@ import java.util.stream.Stream;
 @SuppressWarnings({"PMD.ProhibitPublicStaticMethods", "PMD.TooManyMethods"})
 public final class ActivityWindow {
 
+    /**
+     * When the activity window starts, activities before it are already part of the balance.
+     */
+    private final LocalDateTime start;
+
     /**
      * When the activity window was loaded/created.
      */
     private final LocalDateTime loaded;
 
+    /**
+     * Interned account ids shared by the activities of all accounts.
+     */
+    private final AccountIds ids;
+
     /**
      * Activities map.
      */
-    private final Map<AccountId, List<Activity>> activities;
+    private final Map<AccountId, AccountActivities> activities;
+
+    /**
+     * Activities before the window start, fetched only when iterated.
+     */
+    private final Supplier<Stream<Activity>> older;
 
     /**
      * Main constructor.
      *
+     * @param start Window start.
      * @param timestamp Load time.
+     * @param ids Interned account ids.
      * @param activities Map of activities.
+     * @param older Activities before the window start.
+     * @checkstyle ParameterNumberCheck (3 lines)
      */
     private ActivityWindow(
+        final LocalDateTime start,
         final LocalDateTime timestamp,
-        final Map<AccountId, List<Activity>> activities
+        final AccountIds ids,
+        final Map<AccountId, AccountActivities> activities,
+        final Supplier<Stream<Activity>> older
     ) {
+        this.start = start;
         this.loaded = timestamp;
+        this.ids = ids;
         this.activities = activities;
+        this.older = older;
     }
 
     /**
@@ -53,7 +78,8 @@ public final class ActivityWindow {
      * @since 1.0
      */
     public static ActivityWindow create() {
-        return new ActivityWindow(LocalDateTime.now(), new HashMap<>());
+        final LocalDateTime now = LocalDateTime.now();
+        return new ActivityWindow(now, now, new AccountIds(), new HashMap<>(), Stream::empty);
     }
 
     /**
@@ -68,8 +94,56 @@ public final class ActivityWindow {
         final LocalDateTime time,
         final List<Activity> activities
     ) {
-        final ActivityWindow window = new ActivityWindow(time, new HashMap<>());
-        activities.forEach(window::addActivity);
+        return ActivityWindow.with(time, time, activities);
+    }
+
+    /**
+     * Activity window with an activity list, starting before it was loaded.
+     *
+     * <p>Activities between the start and the load time are part of the window balance,
+     * but are not {@link #newlyAdded()}. This is how an account is rebuilt from a balance
+     * checkpoint at the start time and the activities that followed it.
+     *
+     * @param start Window start.
+     * @param time Load time.
+     * @param activities List of activities.
+     * @return Activity window.
+     * @since 1.0
+     */
+    public static ActivityWindow with(
+        final LocalDateTime start,
+        final LocalDateTime time,
+        final List<Activity> activities
+    ) {
+        return ActivityWindow.with(start, time, activities, Stream::empty);
+    }
+
+    /**
+     * Activity window with an activity list and a lazy source of the activities before it.
+     *
+     * <p>The older activities are only fetched when {@link #all()} or {@link #filtered}
+     * iterate past the window start. They are not part of the window balance.
+     *
+     * @param start Window start.
+     * @param time Load time.
+     * @param activities List of activities.
+     * @param older Activities before the window start.
+     * @return Activity window.
+     * @since 1.0
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    public static ActivityWindow with(
+        final LocalDateTime start,
+        final LocalDateTime time,
+        final List<Activity> activities,
+        final Supplier<Stream<Activity>> older
+    ) {
+        final ActivityWindow window =
+            new ActivityWindow(start, time, new AccountIds(), new HashMap<>(), older);
+        activities
+            .stream()
+            .sorted(Comparator.comparing(activity -> activity.timestamp))
+            .forEach(window::addActivity);
         return window;
     }
 
@@ -81,9 +155,15 @@ public final class ActivityWindow {
      * @since 1.0
      */
     public static ActivityWindow unmodifiable(final List<Activity> activities) {
-        final ActivityWindow window = new ActivityWindow(LocalDateTime.now(), new HashMap<>());
-        activities.forEach(window::addActivity);
-        return new ActivityWindow(window.loaded, Collections.unmodifiableMap(window.activities));
+        final ActivityWindow window = ActivityWindow.with(LocalDateTime.now(), activities);
+        return
+            new ActivityWindow(
+                window.start,
+                window.loaded,
+                window.ids,
+                Collections.unmodifiableMap(window.activities),
+                window.older
+            );
     }
 
     /**
@@ -94,7 +174,7 @@ public final class ActivityWindow {
      * @since 1.0
      */
     public Money withdrawnFromAccount(final AccountId account) {
-        return this.withdrawnFromAccount(account, this.loaded);
+        return this.withdrawnFromAccount(account, this.start);
     }
 
     /**
@@ -105,7 +185,7 @@ public final class ActivityWindow {
      * @since 1.0
      */
     public Money depositedIntoAccount(final AccountId account) {
-        return this.depositedIntoAccount(account, this.loaded);
+        return this.depositedIntoAccount(account, this.start);
     }
 
     /**
@@ -118,14 +198,10 @@ public final class ActivityWindow {
      */
     public Money withdrawnFromAccount(final AccountId account, final LocalDateTime datetime) {
         return
-            this
-                .activities
-                .getOrDefault(account, Collections.emptyList())
-                .stream()
-                .filter(activity -> ActivityWindow.isWithdrawal(account, activity, datetime))
-                .map(activity -> activity.money)
-                .reduce(Money::plus)
-                .orElse(Money.with(0));
+            Optional
+                .ofNullable(this.activities.get(account))
+                .map(list -> list.withdrawn(datetime))
+                .orElse(Money.inMinorUnits(0));
     }
 
     /**
@@ -138,14 +214,55 @@ public final class ActivityWindow {
      */
     public Money depositedIntoAccount(final AccountId account, final LocalDateTime datetime) {
         return
-            this
-                .activities
-                .getOrDefault(account, Collections.emptyList())
-                .stream()
-                .filter(activity -> ActivityWindow.isDeposition(account, activity, datetime))
-                .map(activity -> activity.money)
-                .reduce(Money::plus)
-                .orElse(Money.with(0));
+            Optional
+                .ofNullable(this.activities.get(account))
+                .map(list -> list.deposited(datetime))
+                .orElse(Money.inMinorUnits(0));
+    }
+
+    /**
+     * Net amount moved into an account between the window start and the given datetime.
+     *
+     * <p>If the datetime is before the window start, the activities before the window are
+     * fetched to tell what moved between them, and the amount is the opposite of it.
+     *
+     * @param account Account Id.
+     * @param datetime Datetime, inclusive.
+     * @return Amount of money, negative if more money left the account than entered it.
+     * @since 1.0
+     */
+    public Money movedUntil(final AccountId account, final LocalDateTime datetime) {
+        final Money recent =
+            Optional
+                .ofNullable(this.activities.get(account))
+                .map(list -> list.netUntil(datetime))
+                .orElse(Money.inMinorUnits(0));
+        final Money result;
+        if (datetime.isBefore(this.start)) {
+            result = recent.minus(this.movedBefore(account, datetime));
+        } else {
+            result = recent;
+        }
+        return result;
+    }
+
+    /**
+     * Balance of an account after each of its activities within this window.
+     *
+     * @param account Account Id.
+     * @param starting Balance of the account at the window start.
+     * @return Activity timestamps paired with the balance after them, in time order.
+     * @since 1.0
+     */
+    public List<Map.Entry<LocalDateTime, Money>> balances(
+        final AccountId account,
+        final Money starting
+    ) {
+        return
+            Optional
+                .ofNullable(this.activities.get(account))
+                .map(list -> list.balances(starting))
+                .orElseGet(Collections::emptyList);
     }
 
     /**
@@ -166,7 +283,11 @@ public final class ActivityWindow {
      * @since 1.0
      */
     public Stream<Activity> all() {
-        return this.activities.values().stream().flatMap(Collection::stream);
+        return
+            Stream.concat(
+                this.activities.values().stream().flatMap(AccountActivities::all),
+                Stream.of(this.older).flatMap(Supplier::get)
+            );
     }
 
     /**
@@ -177,7 +298,21 @@ public final class ActivityWindow {
      * @since 1.0
      */
     public Stream<Activity> filtered(final LocalDateTime datetime) {
-        return this.all().filter(activity -> !activity.timestamp.isBefore(datetime));
+        final Stream<Activity> recent =
+            this.activities.values().stream().flatMap(list -> list.since(datetime));
+        final Stream<Activity> result;
+        if (datetime.isBefore(this.start)) {
+            result =
+                Stream.concat(
+                    recent,
+                    Stream.of(this.older)
+                        .flatMap(Supplier::get)
+                        .filter(activity -> !activity.timestamp.isBefore(datetime))
+                );
+        } else {
+            result = recent;
+        }
+        return result;
     }
 
     /**
@@ -187,52 +322,55 @@ public final class ActivityWindow {
      * @since 1.0
      */
     public Stream<Activity> newlyAdded() {
-        return this.all().filter(activity -> !activity.timestamp.isBefore(this.loaded));
+        return this.activities.values().stream().flatMap(list -> list.since(this.loaded));
     }
 
     /**
-     * Insert activity into activity map.
+     * Net amount moved into an account by the activities before the window that happened
+     * after a datetime.
      *
      * @param account Account Id.
-     * @param activity Activity.
+     * @param datetime Datetime, exclusive.
+     * @return Amount of money.
      */
-    private void insertActivity(final AccountId account, final Activity activity) {
-        final List<Activity> list = this.activities.getOrDefault(account, new LinkedList<>());
-        list.add(activity);
-        this.activities.put(account, list);
+    private Money movedBefore(final AccountId account, final LocalDateTime datetime) {
+        return
+            Money.inMinorUnits(
+                Stream.of(this.older)
+                    .flatMap(Supplier::get)
+                    .filter(activity -> activity.timestamp.isAfter(datetime))
+                    .mapToLong(activity -> ActivityWindow.moved(account, activity))
+                    .reduce(0L, Math::addExact)
+            );
     }
 
     /**
-     * Is the given activity a deposit into the given account after the given datetime.
+     * Insert activity into activity map.
      *
      * @param account Account Id.
      * @param activity Activity.
-     * @param datetime Datetime.
-     * @return Boolean.
      */
-    private static boolean isDeposition(
-        final AccountId account,
-        final Activity activity,
-        final LocalDateTime datetime
-    ) {
-        return !activity.timestamp.isBefore(datetime)
-            && (activity.isDeposition() || activity.isTransferredTo(account));
+    private void insertActivity(final AccountId account, final Activity activity) {
+        this.activities
+            .computeIfAbsent(account, acc -> new AccountActivities(this.ids, acc, this.start))
+            .add(activity);
     }
 
     /**
-     * Is the given activity a withdrawal from the given account after the given datetime.
+     * Net minor units an activity moved into an account.
      *
      * @param account Account Id.
      * @param activity Activity.
-     * @param datetime Datetime.
-     * @return Boolean.
+     * @return Minor units, negative if money left the account, zero for a transfer to itself.
      */
-    private static boolean isWithdrawal(
-        final AccountId account,
-        final Activity activity,
-        final LocalDateTime datetime
-    ) {
-        return !activity.timestamp.isBefore(datetime)
-            && (activity.isWithdrawal() || activity.isTransferredFrom(account));
+    private static long moved(final AccountId account, final Activity activity) {
+        long moved = 0L;
+        if (activity.isTransferredTo(account)) {
+            moved = Math.addExact(moved, activity.money.minorUnits());
+        }
+        if (activity.isTransferredFrom(account)) {
+            moved = Math.subtractExact(moved, activity.money.minorUnits());
+        }
+        return moved;
     }
 }
@@ -0,0 +1,117 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package domain.value;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+/**
+ * How much of an account history to load into its activity window.
+ *
+ * <p>Activities older than the horizon are folded into the starting balance of the account
+ * and are only fetched if the activities of the window are iterated past it.
+ *
+ * @since 1.0
+ */
+@SuppressWarnings("PMD.ProhibitPublicStaticMethods")
+public final class Horizon {
+
+    /**
+     * Full history horizon.
+     */
+    private static final Horizon UNBOUNDED = new Horizon(null, -1);
+
+    /**
+     * How far back to load activities, null if not bounded by time.
+     */
+    private final Duration period;
+
+    /**
+     * How many of the latest activities to load, negative if not bounded by count.
+     */
+    private final int count;
+
+    /**
+     * Main constructor.
+     *
+     * @param period How far back to load activities. Can be null.
+     * @param count How many of the latest activities to load, negative for all.
+     */
+    private Horizon(final Duration period, final int count) {
+        this.period = period;
+        this.count = count;
+    }
+
+    /**
+     * Load the full history.
+     *
+     * @return Horizon.
+     * @since 1.0
+     */
+    public static Horizon full() {
+        return Horizon.UNBOUNDED;
+    }
+
+    /**
+     * Load no activities, only the balance.
+     *
+     * @return Horizon.
+     * @since 1.0
+     */
+    public static Horizon none() {
+        return new Horizon(Duration.ZERO, -1);
+    }
+
+    /**
+     * Load the activities of a recent period.
+     *
+     * @param period Period, e.g. 90 days.
+     * @return Horizon.
+     * @since 1.0
+     */
+    public static Horizon last(final Duration period) {
+        return new Horizon(period, -1);
+    }
+
+    /**
+     * Load a number of the latest activities.
+     *
+     * @param count Number of activities.
+     * @return Horizon.
+     * @since 1.0
+     */
+    public static Horizon lastActivities(final int count) {
+        return new Horizon(null, count);
+    }
+
+    /**
+     * Time before which activities are folded into the starting balance.
+     *
+     * @param now Current time.
+     * @return Cutoff time, empty if the horizon is not bounded by time.
+     * @since 1.0
+     */
+    public Optional<LocalDateTime> cutoff(final LocalDateTime now) {
+        return Optional.ofNullable(this.period).map(now::minus);
+    }
+
+    /**
+     * Number of the latest activities to load.
+     *
+     * @return Number of activities, empty if the horizon is not bounded by count.
+     * @since 1.0
+     */
+    public OptionalInt activities() {
+        final OptionalInt result;
+        if (this.count < 0) {
+            result = OptionalInt.empty();
+        } else {
+            result = OptionalInt.of(this.count);
+        }
+        return result;
+    }
+}
@@ -5,39 +5,92 @@
 package domain.value;
 
 import java.math.BigDecimal;
-import java.util.Objects;
+import java.math.RoundingMode;
 
 /**
  * Money.
  *
+ * <p>Fixed-point amount held as a number of minor units (cents by default). The number of
+ * decimal places is read once from the {@code money.scale} system property and defaults to 2.
+ * Arithmetic is overflow-checked and small amounts are served from a cache.
+ *
  * @since 1.0
  */
 @SuppressWarnings("PMD.ProhibitPublicStaticMethods")
 public final class Money {
 
     /**
-     * Amount.
+     * Number of decimal places of a minor unit.
+     */
+    public static final int SCALE = Integer.getInteger("money.scale", 2);
+
+    /**
+     * Minor units in one major unit.
+     */
+    private static final long FACTOR = BigDecimal.ONE.movePointRight(Money.SCALE).longValueExact();
+
+    /**
+     * Lowest cached amount in minor units.
+     */
+    private static final int CACHE_LOW = -128;
+
+    /**
+     * Highest cached amount in minor units.
+     */
+    private static final int CACHE_HIGH = 1024;
+
+    /**
+     * Cached instances of small amounts.
+     */
+    private static final Money[] SMALL = Money.cache();
+
+    /**
+     * Amount in minor units.
      */
-    private final BigDecimal amount;
+    private final long units;
 
     /**
      * Main constructor.
      *
-     * @param amount Amount.
+     * @param units Amount in minor units.
      */
-    private Money(final BigDecimal amount) {
-        this.amount = amount;
+    private Money(final long units) {
+        this.units = units;
     }
 
     /**
      * Create money instance.
      *
-     * @param value Double value.
+     * @param value Double value, rounded half-even to {@link #SCALE} decimal places.
+     * @return Money.
+     * @throws ArithmeticException If the value does not fit in minor units.
+     * @since 1.0
+     */
+    public static Money with(final double value) throws ArithmeticException {
+        return
+            Money.inMinorUnits(
+                BigDecimal.valueOf(value)
+                    .movePointRight(Money.SCALE)
+                    .setScale(0, RoundingMode.HALF_EVEN)
+                    .longValueExact()
+            );
+    }
+
+    /**
+     * Create money instance from an amount of minor units, cached if small.
+     *
+     * @param units Amount in minor units.
      * @return Money.
      * @since 1.0
      */
-    public static Money with(final double value) {
-        return new Money(BigDecimal.valueOf(value));
+    public static Money inMinorUnits(final long units) {
+        final Money money;
+        if (units >= Money.CACHE_LOW && units <= Money.CACHE_HIGH) {
+            money = Money.SMALL[(int) units - Money.CACHE_LOW];
+        } else {
+            money = new Money(units);
+        }
+        return money;
     }
 
     /**
@@ -47,7 +100,18 @@ public final class Money {
      * @since 1.0
      */
     public boolean isPositiveOrZero() {
-        return this.amount.compareTo(BigDecimal.ZERO) >= 0;
+        return this.units >= 0;
+    }
+
+    /**
+     * Is this amount greater than or equal to the passed one.
+     *
+     * @param money Another money.
+     * @return Boolean.
+     * @since 1.0
+     */
+    public boolean covers(final Money money) {
+        return this.units >= money.units;
     }
 
     /**
@@ -55,10 +119,11 @@ public final class Money {
      *
      * @param money Another money.
      * @return A new money instance.
+     * @throws ArithmeticException If the result overflows.
      * @since 1.0
      */
-    public Money minus(final Money money) {
-        return new Money(this.amount.subtract(money.amount));
+    public Money minus(final Money money) throws ArithmeticException {
+        return Money.inMinorUnits(Math.subtractExact(this.units, money.units));
     }
 
     /**
@@ -67,8 +132,18 @@ public final class Money {
      * @return Double.
      * @since 1.0
      */
-    public Double value() {
-        return this.amount.doubleValue();
+    public double value() {
+        return (double) this.units / Money.FACTOR;
+    }
+
+    /**
+     * Amount of money in minor units.
+     *
+     * @return Minor units.
+     * @since 1.0
+     */
+    public long minorUnits() {
+        return this.units;
     }
 
     /**
@@ -76,10 +151,11 @@ public final class Money {
      *
      * @param money Another money.
      * @return A new money instance.
+     * @throws ArithmeticException If the result overflows.
      * @since 1.0
      */
-    public Money plus(final Money money) {
-        return new Money(this.amount.add(money.amount));
+    public Money plus(final Money money) throws ArithmeticException {
+        return Money.inMinorUnits(Math.addExact(this.units, money.units));
     }
 
     @Override
@@ -92,13 +168,26 @@ public final class Money {
             result = false;
         } else {
             final Money other = (Money) another;
-            result = Objects.equals(this.amount, other.amount);
+            result = this.units == other.units;
         }
         return result;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(this.amount);
+        return Long.hashCode(this.units);
+    }
+
+    /**
+     * Build the small amounts cache.
+     *
+     * @return Cached instances.
+     */
+    private static Money[] cache() {
+        final Money[] cache = new Money[Money.CACHE_HIGH - Money.CACHE_LOW + 1];
+        for (int idx = 0; idx < cache.length; idx += 1) {
+            cache[idx] = new Money(idx + Money.CACHE_LOW);
+        }
+        return cache;
     }
 }
@@ -0,0 +1,165 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package port.in;
+
+import domain.value.AccountId;
+import exception.ConcurrentOperationException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped per-account locks.
+ *
+ * <p>Every account maps to one of a fixed number of locks. Locks of several accounts are
+ * always acquired in stripe order, so that two operations on the same accounts cannot
+ * deadlock, and callers wait up to a timeout for them instead of failing right away.
+ *
+ * @since 1.0
+ */
+public final class AccountLocks {
+
+    /**
+     * Bits the hash of an account is shifted by, so that its high bits pick a lock too.
+     */
+    private static final int SPREAD = 16;
+
+    /**
+     * Locks.
+     */
+    private final ReentrantLock[] stripes;
+
+    /**
+     * How long to wait for the locks.
+     */
+    private final Duration timeout;
+
+    /**
+     * Main constructor.
+     *
+     * @param stripes Number of locks, rounded up to a power of two.
+     * @param timeout How long to wait for the locks.
+     * @since 1.0
+     */
+    public AccountLocks(final int stripes, final Duration timeout) {
+        this(AccountLocks.create(stripes), timeout);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param stripes Locks, a power of two of them.
+     * @param timeout How long to wait for the locks.
+     */
+    private AccountLocks(final ReentrantLock[] stripes, final Duration timeout) {
+        this.stripes = stripes.clone();
+        this.timeout = timeout;
+    }
+
+    /**
+     * Run an action while holding the locks of some accounts.
+     *
+     * @param action Action.
+     * @param accounts Accounts to lock, null ones are ignored.
+     * @param <E> Exception the action may throw.
+     * @throws ConcurrentOperationException If the locks could not be acquired in time.
+     * @throws E If the action fails.
+     * @since 1.0
+     */
+    public <E extends Exception> void locked(
+        final Action<E> action,
+        final AccountId... accounts
+    ) throws ConcurrentOperationException, E {
+        final int[] indexes =
+            Arrays.stream(accounts)
+                .filter(Objects::nonNull)
+                .mapToInt(this::stripe)
+                .sorted()
+                .distinct()
+                .toArray();
+        final int acquired = this.acquire(indexes);
+        try {
+            if (acquired < indexes.length) {
+                throw new ConcurrentOperationException();
+            }
+            action.run();
+        } finally {
+            for (int idx = acquired - 1; idx >= 0; idx -= 1) {
+                this.stripes[indexes[idx]].unlock();
+            }
+        }
+    }
+
+    /**
+     * Acquire locks in order until all are held or the timeout elapses.
+     *
+     * @param indexes Sorted lock indexes.
+     * @return Number of locks acquired.
+     */
+    private int acquire(final int... indexes) {
+        final long deadline = System.nanoTime() + this.timeout.toNanos();
+        int acquired = 0;
+        try {
+            while (acquired < indexes.length
+                && this.stripes[indexes[acquired]].tryLock(
+                    deadline - System.nanoTime(),
+                    TimeUnit.NANOSECONDS
+                )) {
+                acquired += 1;
+            }
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        return acquired;
+    }
+
+    /**
+     * Create locks.
+     *
+     * @param stripes Number of locks, rounded up to a power of two.
+     * @return Locks.
+     */
+    private static ReentrantLock[] create(final int stripes) {
+        int size = 1;
+        while (size < stripes) {
+            size <<= 1;
+        }
+        final ReentrantLock[] locks = new ReentrantLock[size];
+        for (int idx = 0; idx < size; idx += 1) {
+            locks[idx] = new ReentrantLock();
+        }
+        return locks;
+    }
+
+    /**
+     * Lock index of an account.
+     *
+     * @param account Account Id.
+     * @return Lock index.
+     */
+    private int stripe(final AccountId account) {
+        final int hash = account.hashCode();
+        return (hash ^ hash >>> AccountLocks.SPREAD) & this.stripes.length - 1;
+    }
+
+    /**
+     * Action to run while holding locks.
+     *
+     * @param <E> Exception the action may throw.
+     * @since 1.0
+     */
+    @FunctionalInterface
+    public interface Action<E extends Exception> {
+
+        /**
+         * Run the action.
+         *
+         * @throws E If the action fails.
+         */
+        void run() throws E;
+    }
+}
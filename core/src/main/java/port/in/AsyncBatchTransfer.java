@@ -0,0 +1,54 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package port.in;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Batch transfer port running on an executor.
+ *
+ * <p>Futures fail with the exceptions the blocking port throws, such as an
+ * {@link exception.InsufficientFundsException} or a
+ * {@link exception.ConcurrentOperationException}.
+ *
+ * @since 1.0
+ */
+public final class AsyncBatchTransfer {
+
+    /**
+     * Blocking port.
+     */
+    private final BatchTransfer origin;
+
+    /**
+     * Calls executor.
+     */
+    private final AsyncCalls calls;
+
+    /**
+     * Main constructor.
+     *
+     * @param origin Blocking port.
+     * @param executor Executor the blocking calls run on.
+     * @since 1.0
+     */
+    public AsyncBatchTransfer(final BatchTransfer origin, final Executor executor) {
+        this.origin = origin;
+        this.calls = new AsyncCalls(executor);
+    }
+
+    /**
+     * Send money for all transfers, or for none of them.
+     *
+     * @param transfers Transfers, applied in order.
+     * @return Future completed once all the transfers are stored.
+     * @since 1.0
+     */
+    public CompletableFuture<Void> transfer(final List<Transfer> transfers) {
+        return this.calls.run(() -> this.origin.transfer(transfers));
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package port.in;
+
+import exception.ConcurrentOperationException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Blocking calls run on an executor.
+ *
+ * <p>Futures fail with the exception or error thrown by the call itself, not wrapped in
+ * another one, with a {@link ConcurrentOperationException} if the executor rejects the
+ * call, and are cancelled if the executor cancels it.
+ *
+ * @since 1.0
+ */
+final class AsyncCalls {
+
+    /**
+     * Executor.
+     */
+    private final Executor executor;
+
+    /**
+     * Main constructor.
+     *
+     * @param executor Executor.
+     */
+    AsyncCalls(final Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Run a call on the executor.
+     *
+     * @param call Call.
+     * @param <T> Result type.
+     * @return Future of the call result.
+     */
+    <T> CompletableFuture<T> call(final Callable<T> call) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            this.executor.execute(new AsyncCalls.Completing<>(call, future));
+        } catch (final RejectedExecutionException exception) {
+            future.completeExceptionally(new ConcurrentOperationException());
+        }
+        return future;
+    }
+
+    /**
+     * Run an action on the executor.
+     *
+     * @param action Action.
+     * @return Future completed once the action is done.
+     */
+    CompletableFuture<Void> run(final AsyncCalls.Action action) {
+        return
+            this.call(
+                () -> {
+                    action.run();
+                    return null;
+                }
+            );
+    }
+
+    /**
+     * Task completing a future with the outcome of a call, whatever it throws.
+     *
+     * @param <T> Result type.
+     * @since 1.0
+     */
+    private static class Completing<T> extends FutureTask<T> {
+
+        /**
+         * Future completed once the call is done.
+         */
+        private final CompletableFuture<T> future;
+
+        /**
+         * Main constructor.
+         *
+         * @param call Call.
+         * @param future Future completed once the call is done.
+         */
+        Completing(final Callable<T> call, final CompletableFuture<T> future) {
+            super(call);
+            this.future = future;
+        }
+
+        @Override
+        protected void done() {
+            try {
+                this.future.complete(this.get());
+            } catch (final ExecutionException exception) {
+                this.future.completeExceptionally(exception.getCause());
+            } catch (final CancellationException exception) {
+                this.future.cancel(false);
+            } catch (final InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                this.future.completeExceptionally(exception);
+            }
+        }
+    }
+
+    /**
+     * Blocking action run on the executor.
+     *
+     * @since 1.0
+     */
+    @FunctionalInterface
+    interface Action {
+
+        /**
+         * Run the action.
+         *
+         * @throws Exception If the action fails, failing its future with it.
+         */
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package port.in;
+
+import domain.entity.Account;
+import domain.value.Money;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Create account port running on an executor.
+ *
+ * @since 1.0
+ */
+public final class AsyncCreateAccount {
+
+    /**
+     * Blocking port.
+     */
+    private final CreateAccount origin;
+
+    /**
+     * Calls executor.
+     */
+    private final AsyncCalls calls;
+
+    /**
+     * Main constructor.
+     *
+     * @param origin Blocking port.
+     * @param executor Executor the blocking calls run on.
+     * @since 1.0
+     */
+    public AsyncCreateAccount(final CreateAccount origin, final Executor executor) {
+        this.origin = origin;
+        this.calls = new AsyncCalls(executor);
+    }
+
+    /**
+     * Create account.
+     *
+     * @param starting Starting balance.
+     * @return Future of the stored account.
+     * @since 1.0
+     */
+    public CompletableFuture<Account> create(final Money starting) {
+        return this.calls.call(() -> this.origin.create(starting));
+    }
+}
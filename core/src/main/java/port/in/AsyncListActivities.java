@@ -0,0 +1,76 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package port.in;
+
+import domain.value.AccountId;
+import domain.value.Activity;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+/**
+ * List activities port running on an executor.
+ *
+ * <p>Activities are collected on the executor, since streams of activities may still
+ * fetch older ones from the persistence while they are consumed.
+ *
+ * @since 1.0
+ */
+public final class AsyncListActivities {
+
+    /**
+     * Blocking port.
+     */
+    private final ListActivities origin;
+
+    /**
+     * Calls executor.
+     */
+    private final AsyncCalls calls;
+
+    /**
+     * Main constructor.
+     *
+     * @param origin Blocking port.
+     * @param executor Executor the blocking calls run on.
+     * @since 1.0
+     */
+    public AsyncListActivities(final ListActivities origin, final Executor executor) {
+        this.origin = origin;
+        this.calls = new AsyncCalls(executor);
+    }
+
+    /**
+     * All account activities.
+     *
+     * @param id Account Id.
+     * @return Future of the activities.
+     * @since 1.0
+     */
+    public CompletableFuture<List<Activity>> byAccountId(final AccountId id) {
+        return
+            this.calls.call(() -> this.origin.byAccountId(id).collect(Collectors.toList()));
+    }
+
+    /**
+     * Account activities after a certain datetime.
+     *
+     * @param id Account Id.
+     * @param datetime Datetime.
+     * @return Future of the activities.
+     * @since 1.0
+     */
+    public CompletableFuture<List<Activity>> byAccountId(
+        final AccountId id,
+        final LocalDateTime datetime
+    ) {
+        return
+            this.calls.call(
+                () -> this.origin.byAccountId(id, datetime).collect(Collectors.toList())
+            );
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package port.in;
+
+import domain.value.AccountId;
+import domain.value.Money;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Query balance port running on an executor.
+ *
+ * @since 1.0
+ */
+public final class AsyncQueryBalance {
+
+    /**
+     * Blocking port.
+     */
+    private final QueryBalance origin;
+
+    /**
+     * Calls executor.
+     */
+    private final AsyncCalls calls;
+
+    /**
+     * Main constructor.
+     *
+     * @param origin Blocking port.
+     * @param executor Executor the blocking calls run on.
+     * @since 1.0
+     */
+    public AsyncQueryBalance(final QueryBalance origin, final Executor executor) {
+        this.origin = origin;
+        this.calls = new AsyncCalls(executor);
+    }
+
+    /**
+     * Get account balance.
+     *
+     * @param id Account Id.
+     * @return Future of the balance.
+     * @since 1.0
+     */
+    public CompletableFuture<Money> getAccountBalance(final AccountId id) {
+        return this.calls.call(() -> this.origin.getAccountBalance(id));
+    }
+
+    /**
+     * Get the balances of several accounts at once.
+     *
+     * @param ids Account Ids.
+     * @return Future of the balances by account Id, in the order of the Ids.
+     * @since 1.0
+     */
+    public CompletableFuture<Map<AccountId, Money>> getAccountBalances(
+        final Collection<AccountId> ids
+    ) {
+        return this.calls.call(() -> this.origin.getAccountBalances(ids));
+    }
+
+    /**
+     * Get account balance at a point in time.
+     *
+     * @param id Account Id.
+     * @param datetime Datetime.
+     * @return Future of the balance.
+     * @since 1.0
+     */
+    public CompletableFuture<Money> getAccountBalanceAt(
+        final AccountId id,
+        final LocalDateTime datetime
+    ) {
+        return this.calls.call(() -> this.origin.getAccountBalanceAt(id, datetime));
+    }
+
+    /**
+     * Get account balance after each of its activities.
+     *
+     * @param id Account Id.
+     * @return Future of the activity timestamps paired with the balance after them.
+     * @since 1.0
+     */
+    public CompletableFuture<List<Map.Entry<LocalDateTime, Money>>> getAccountBalanceHistory(
+        final AccountId id
+    ) {
+        return this.calls.call(() -> this.origin.getAccountBalanceHistory(id));
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package port.in;
+
+import domain.value.AccountId;
+import domain.value.Money;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Send money port running on an executor.
+ *
+ * <p>Futures fail with the exceptions the blocking port throws, such as an
+ * {@link exception.InsufficientFundsException} or a
+ * {@link exception.ConcurrentOperationException}.
+ *
+ * @since 1.0
+ */
+public final class AsyncSendMoney {
+
+    /**
+     * Blocking port.
+     */
+    private final SendMoney origin;
+
+    /**
+     * Calls executor.
+     */
+    private final AsyncCalls calls;
+
+    /**
+     * Main constructor.
+     *
+     * @param origin Blocking port.
+     * @param executor Executor the blocking calls run on.
+     * @since 1.0
+     */
+    public AsyncSendMoney(final SendMoney origin, final Executor executor) {
+        this.origin = origin;
+        this.calls = new AsyncCalls(executor);
+    }
+
+    /**
+     * Withdraw money from account.
+     *
+     * @param id Account Id.
+     * @param money Money account.
+     * @return Future completed once the withdrawal is stored.
+     * @since 1.0
+     */
+    public CompletableFuture<Void> withdraw(final AccountId id, final Money money) {
+        return this.calls.run(() -> this.origin.withdraw(id, money));
+    }
+
+    /**
+     * Deposit money into account.
+     *
+     * @param id Account Id.
+     * @param money Money account.
+     * @return Future completed once the deposit is stored.
+     * @since 1.0
+     */
+    public CompletableFuture<Void> deposit(final AccountId id, final Money money) {
+        return this.calls.run(() -> this.origin.deposit(id, money));
+    }
+
+    /**
+     * Send money between accounts.
+     *
+     * @param source Source account.
+     * @param target Target account.
+     * @param money Money account.
+     * @return Future completed once the transfer is stored.
+     * @since 1.0
+     */
+    public CompletableFuture<Void> sendMoney(
+        final AccountId source,
+        final AccountId target,
+        final Money money
+    ) {
+        return this.calls.run(() -> this.origin.sendMoney(source, target, money));
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package port.in;
+
+import common.PreConditions;
+import domain.value.AccountId;
+import domain.value.Activity;
+import domain.value.Money;
+import exception.ConcurrentOperationException;
+import exception.InsufficientFundsException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import port.out.LookupBalances;
+import port.out.StoreActivity;
+
+/**
+ * Batch transfer input port, sending money for a list of transfers all or nothing.
+ *
+ * <p>The accounts of all the transfers are locked at once, then the transfers are checked
+ * in order against the balances, each one seeing the money moved by those before it. The
+ * activities are only stored, with a single call, once all of them are known to be covered.
+ * Batches created by {@link SendMoney#batchTransfer} share its locks, and those sent through a
+ * {@link ShardedSendMoney} run on its shards instead, so that every account keeps a single
+ * writer whichever the port.
+ *
+ * @since 1.0
+ */
+public final class BatchTransfer {
+
+    /**
+     * Lookup balances port.
+     */
+    private final LookupBalances balances;
+
+    /**
+     * Store activities port.
+     */
+    private final StoreActivity activities;
+
+    /**
+     * Account locks.
+     */
+    private final AccountLocks locks;
+
+    /**
+     * Main constructor.
+     *
+     * @param balances Lookup balances port.
+     * @param activities Store activities port.
+     * @param locks Account locks.
+     * @since 1.0
+     */
+    public BatchTransfer(
+        final LookupBalances balances,
+        final StoreActivity activities,
+        final AccountLocks locks
+    ) {
+        this.balances = balances;
+        this.activities = activities;
+        this.locks = locks;
+    }
+
+    /**
+     * Send money for all transfers, or for none of them.
+     *
+     * @param transfers Transfers, applied in order.
+     * @throws ConcurrentOperationException If any of the accounts stays locked by another
+     *  transaction.
+     * @throws InsufficientFundsException If a source account does not have enough money for
+     *  one of the transfers.
+     * @since 1.0
+     */
+    public void transfer(
+        final List<Transfer> transfers
+    ) throws ConcurrentOperationException, InsufficientFundsException {
+        final Set<AccountId> ids = BatchTransfer.ids(transfers);
+        this.locks.locked(() -> this.apply(transfers, ids), ids.toArray(new AccountId[0]));
+    }
+
+    /**
+     * Send money for all transfers, or for none of them, without locking their accounts.
+     *
+     * <p>The caller must be the only writer of the source accounts until it returns.
+     *
+     * @param transfers Transfers, applied in order.
+     * @throws InsufficientFundsException If a source account does not have enough money for
+     *  one of the transfers.
+     */
+    void unlocked(final List<Transfer> transfers) throws InsufficientFundsException {
+        this.apply(transfers, BatchTransfer.ids(transfers));
+    }
+
+    /**
+     * Ids of the accounts of transfers.
+     *
+     * @param transfers Transfers.
+     * @return Source and target account Ids, in the order of the transfers.
+     */
+    private static Set<AccountId> ids(final List<Transfer> transfers) {
+        final Set<AccountId> ids = new LinkedHashSet<>();
+        for (final Transfer transfer : transfers) {
+            ids.add(transfer.source());
+            ids.add(transfer.target());
+        }
+        return ids;
+    }
+
+    /**
+     * Send money for all transfers without locking their accounts.
+     *
+     * @param transfers Transfers, applied in order.
+     * @param ids Ids of all the accounts of the transfers, owned by the caller.
+     * @throws InsufficientFundsException If a source account does not have enough money for
+     *  one of the transfers.
+     */
+    private void apply(
+        final List<Transfer> transfers,
+        final Set<AccountId> ids
+    ) throws InsufficientFundsException {
+        final Map<AccountId, Money> current = new HashMap<>(this.balances.balances(ids));
+        final List<Activity> sent = new ArrayList<>(transfers.size());
+        for (final Transfer transfer : transfers) {
+            PreConditions.require(
+                current.get(transfer.source()),
+                balance -> balance.covers(transfer.money()),
+                InsufficientFundsException::new
+            );
+            current.merge(transfer.source(), transfer.money(), Money::minus);
+            current.merge(transfer.target(), transfer.money(), Money::plus);
+            sent.add(Activity.transfer(transfer.source(), transfer.target(), transfer.money()));
+        }
+        this.activities.storeActivities(sent);
+    }
+}
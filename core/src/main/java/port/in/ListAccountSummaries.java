@@ -0,0 +1,42 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package port.in;
+
+import java.util.stream.Stream;
+import port.out.AccountSummary;
+import port.out.LookupAccountSummaries;
+
+/**
+ * List account summaries input port, for listings that do not need the account activities.
+ *
+ * @since 1.0
+ */
+public final class ListAccountSummaries {
+
+    /**
+     * Lookup account summaries port.
+     */
+    private final LookupAccountSummaries lookup;
+
+    /**
+     * Main constructor.
+     *
+     * @param lookup Lookup account summaries port.
+     * @since 1.0
+     */
+    public ListAccountSummaries(final LookupAccountSummaries lookup) {
+        this.lookup = lookup;
+    }
+
+    /**
+     * Account summaries.
+     *
+     * @return Stream of account summaries ordered by account Id, to be closed once done.
+     * @since 1.0
+     */
+    public Stream<AccountSummary> summaries() {
+        return this.lookup.summaries();
+    }
+}
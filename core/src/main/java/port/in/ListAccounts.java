@@ -7,6 +7,7 @@ package port.in;
 import domain.entity.Account;
 import domain.value.AccountId;
 import java.util.stream.Stream;
+import port.out.AccountsPage;
 import port.out.LookupAccounts;
 
 /**
@@ -34,13 +35,30 @@ public class ListAccounts {
     /**
      * Accounts.
      *
-     * @return Stream of accounts.
+     * @return Stream of accounts, to be closed once done.
      * @since 1.0
      */
     public Stream<Account> accounts() {
         return this.lookup.all();
     }
 
+    /**
+     * Page of accounts ordered by Id.
+     *
+     * @param after Id of the last account of the previous page, null for the first page.
+     * @param size Page size.
+     * @return Page, with the cursor of the next page.
+     * @throws IllegalArgumentException If the page size is not positive.
+     * @since 1.0
+     */
+    public AccountsPage page(
+        final AccountId after,
+        final int size
+    ) throws IllegalArgumentException {
+        AccountsPage.require(size);
+        return this.lookup.page(after, size);
+    }
+
     /**
      * Account by Id.
      *
@@ -6,7 +6,13 @@ package port.in;
 
 import domain.value.AccountId;
 import domain.value.Money;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import port.out.LookupAccounts;
+import port.out.LookupBalances;
 
 /**
  * Query balance port.
@@ -21,13 +27,31 @@ public final class QueryBalance {
     private final LookupAccounts lookup;
 
     /**
-     * Main constructor.
+     * Lookup balances port.
+     */
+    private final LookupBalances balances;
+
+    /**
+     * Constructor for storages without a lookup balances port, computing balances from the
+     * loaded accounts.
      *
      * @param lookup Lookup accounts port.
      * @since 1.0
      */
     public QueryBalance(final LookupAccounts lookup) {
+        this(lookup, QueryBalance.loading(lookup));
+    }
+
+    /**
+     * Main constructor.
+     *
+     * @param lookup Lookup accounts port.
+     * @param balances Lookup balances port.
+     * @since 1.0
+     */
+    public QueryBalance(final LookupAccounts lookup, final LookupBalances balances) {
         this.lookup = lookup;
+        this.balances = balances;
     }
 
     /**
@@ -38,6 +62,63 @@ public final class QueryBalance {
      * @since 1.0
      */
     public Money getAccountBalance(final AccountId id) {
-        return this.lookup.byId(id).balance();
+        return this.balances.balance(id);
+    }
+
+    /**
+     * Get the balances of several accounts at once.
+     *
+     * @param ids Account Ids.
+     * @return Balances by account Id, in the order of the Ids.
+     * @since 1.0
+     */
+    public Map<AccountId, Money> getAccountBalances(final Collection<AccountId> ids) {
+        return this.balances.balances(ids);
+    }
+
+    /**
+     * Get account balance at a point in time.
+     *
+     * @param id Account Id.
+     * @param datetime Datetime.
+     * @return Balance.
+     * @since 1.0
+     */
+    public Money getAccountBalanceAt(final AccountId id, final LocalDateTime datetime) {
+        return this.lookup.byId(id).balance(datetime);
+    }
+
+    /**
+     * Get account balance after each of its activities.
+     *
+     * @param id Account Id.
+     * @return Activity timestamps paired with the balance after them, in time order.
+     * @since 1.0
+     */
+    public List<Map.Entry<LocalDateTime, Money>> getAccountBalanceHistory(final AccountId id) {
+        return this.lookup.byId(id).balances();
+    }
+
+    /**
+     * Lookup balances port computing balances from the loaded accounts.
+     *
+     * @param lookup Lookup accounts port.
+     * @return Lookup balances port.
+     */
+    private static LookupBalances loading(final LookupAccounts lookup) {
+        return
+            new LookupBalances() {
+                @Override
+                public Money balance(final AccountId id) {
+                    return lookup.byId(id).balance();
+                }
+
+                @Override
+                public Map<AccountId, Money> balances(final Collection<AccountId> ids) {
+                    final Map<AccountId, Money> balances = new LinkedHashMap<>();
+                    lookup.byIds(ids).forEach((id, account) -> balances.put(id, account.balance()));
+                    return balances;
+                }
+            };
     }
 }
@@ -6,15 +6,13 @@ package port.in;
 
 import domain.entity.Account;
 import domain.value.AccountId;
+import domain.value.Horizon;
 import domain.value.Money;
 import exception.ConcurrentOperationException;
 import exception.InsufficientFundsException;
-import java.util.Arrays;
-import java.util.Objects;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.time.Duration;
 import port.out.LookupAccounts;
+import port.out.LookupBalances;
 import port.out.StoreActivity;
 
 /**
@@ -25,9 +23,10 @@ import port.out.StoreActivity;
 public class SendMoney {
 
     /**
-     * Locked accounts map.
+     * Locks shared by all instances and the batch transfers they create, waiting up to two
+     * seconds for an account.
      */
-    private static final Set<AccountId> LOCKED_ACCOUNTS = ConcurrentHashMap.newKeySet();
+    private static final AccountLocks LOCKS = new AccountLocks(1024, Duration.ofSeconds(2));
 
     /**
      * Lookup accounts port.
@@ -39,16 +38,75 @@ public class SendMoney {
      */
     private final StoreActivity activities;
 
+    /**
+     * How much of the accounts history to load.
+     */
+    private final Horizon horizon;
+
+    /**
+     * Account locks.
+     */
+    private final AccountLocks locks;
+
     /**
      * Main constructor.
      *
      * @param lookup Lookup accounts port.
      * @param activities Update account activities.
+     * @param horizon How much of the accounts history to load.
+     * @param locks Account locks.
      * @since 1.0
+     * @checkstyle ParameterNumberCheck (3 lines)
      */
-    public SendMoney(final LookupAccounts lookup, final StoreActivity activities) {
+    public SendMoney(
+        final LookupAccounts lookup,
+        final StoreActivity activities,
+        final Horizon horizon,
+        final AccountLocks locks
+    ) {
         this.lookup = lookup;
         this.activities = activities;
+        this.horizon = horizon;
+        this.locks = locks;
+    }
+
+    /**
+     * Constructor using the shared account locks.
+     *
+     * @param lookup Lookup accounts port.
+     * @param activities Update account activities.
+     * @param horizon How much of the accounts history to load.
+     * @since 1.0
+     */
+    public SendMoney(
+        final LookupAccounts lookup,
+        final StoreActivity activities,
+        final Horizon horizon
+    ) {
+        this(lookup, activities, horizon, SendMoney.LOCKS);
+    }
+
+    /**
+     * Constructor loading only the balance of accounts, which is all money transfers need.
+     *
+     * @param lookup Lookup accounts port.
+     * @param activities Update account activities.
+     * @since 1.0
+     */
+    public SendMoney(final LookupAccounts lookup, final StoreActivity activities) {
+        this(lookup, activities, Horizon.none());
+    }
+
+    /**
+     * Batch transfer port sharing the account locks of this port, so that batches and single
+     * operations on the same accounts never run at the same time.
+     *
+     * @param balances Lookup balances port.
+     * @return Batch transfer input port.
+     * @since 1.0
+     */
+    public BatchTransfer batchTransfer(final LookupBalances balances) {
+        return new BatchTransfer(balances, this.activities, this.locks);
     }
 
     /**
@@ -56,7 +114,7 @@ public class SendMoney {
      *
      * @param id Account Id.
      * @param money Money account.
-     * @throws ConcurrentOperationException If any of accounts is locked in another transaction.
+     * @throws ConcurrentOperationException If the account stays locked by another transaction.
      * @throws InsufficientFundsException If the source account does not have enough money.
      * @since 1.0
      */
@@ -64,13 +122,7 @@ public class SendMoney {
         final AccountId id,
         final Money money
     ) throws ConcurrentOperationException, InsufficientFundsException {
-        if (SendMoney.anyLocked(id)) {
-            throw new ConcurrentOperationException();
-        }
-        final Account account = this.lookup.byId(id);
-        SendMoney.lock(id);
-        this.activities.storeActivity(account.withdraw(money));
-        SendMoney.release(id);
+        this.locks.locked(() -> this.applyWithdrawal(id, money), id);
     }
 
     /**
@@ -78,20 +130,14 @@ public class SendMoney {
      *
      * @param id Account Id.
      * @param money Money account.
-     * @throws ConcurrentOperationException If any of accounts is locked in another transaction.
+     * @throws ConcurrentOperationException If the account stays locked by another transaction.
      * @since 1.0
      */
     public void deposit(
         final AccountId id,
         final Money money
     ) throws ConcurrentOperationException {
-        if (SendMoney.anyLocked(id)) {
-            throw new ConcurrentOperationException();
-        }
-        final Account account = this.lookup.byId(id);
-        SendMoney.lock(id);
-        this.activities.storeActivity(account.deposit(money));
-        SendMoney.release(id);
+        this.locks.locked(() -> this.applyDeposit(id, money), id);
     }
 
     /**
@@ -100,7 +146,7 @@ public class SendMoney {
      * @param source Source account.
      * @param target Target account.
      * @param money Money account.
-     * @throws ConcurrentOperationException If any of accounts is locked in another transaction.
+     * @throws ConcurrentOperationException If any of accounts stays locked by another transaction.
      * @throws InsufficientFundsException If the source account does not have enough money.
      * @since 1.0
      */
@@ -109,49 +155,47 @@ public class SendMoney {
         final AccountId target,
         final Money money
     ) throws ConcurrentOperationException, InsufficientFundsException {
-        if (SendMoney.anyLocked(source, target)) {
-            throw new ConcurrentOperationException();
-        }
-        final Account sor = this.lookup.byId(source);
-        final Account trg = this.lookup.byId(target);
-        SendMoney.lock(source, target);
-        this.activities.storeActivity(sor.transfer(trg.accountId(), money));
-        SendMoney.release(source, target);
+        this.locks.locked(() -> this.applyTransfer(source, target, money), source, target);
     }
 
     /**
-     * Lock Accounts to prevent concurrent modifications.
+     * Withdraw money from account without locking it.
      *
-     * @param accounts Accounts to lock.
+     * @param id Account Id, owned by the caller.
+     * @param money Money account.
+     * @throws InsufficientFundsException If the source account does not have enough money.
      */
-    private static void lock(final AccountId... accounts) {
-        SendMoney
-            .LOCKED_ACCOUNTS
-            .addAll(Arrays.stream(accounts).filter(Objects::nonNull).collect(Collectors.toList()));
+    void applyWithdrawal(final AccountId id, final Money money) throws InsufficientFundsException {
+        final Account account = this.lookup.byId(id, this.horizon);
+        this.activities.storeActivity(account.withdraw(money));
     }
 
     /**
-     * Release lock on accounts.
+     * Deposit money into account without locking it.
      *
-     * @param accounts Accounts to release.
+     * @param id Account Id, owned by the caller.
+     * @param money Money account.
      */
-    private static void release(final AccountId... accounts) {
-        SendMoney.LOCKED_ACCOUNTS.removeAll(Arrays.asList(accounts));
+    void applyDeposit(final AccountId id, final Money money) {
+        final Account account = this.lookup.byId(id, this.horizon);
+        this.activities.storeActivity(account.deposit(money));
     }
 
     /**
-     * Check if any of the accounts is locked.
+     * Send money between accounts without locking them.
      *
-     * @param accounts Accounts to check.
-     * @return Is any of these accounts locked.
+     * @param source Source account, owned by the caller.
+     * @param target Target account.
+     * @param money Money account.
+     * @throws InsufficientFundsException If the source account does not have enough money.
      */
-    private static boolean anyLocked(final AccountId... accounts) {
-        return
-            Arrays
-                .stream(accounts)
-                .filter(Objects::nonNull)
-                .map(SendMoney.LOCKED_ACCOUNTS::contains)
-                .reduce(false, Boolean::logicalOr);
+    void applyTransfer(
+        final AccountId source,
+        final AccountId target,
+        final Money money
+    ) throws InsufficientFundsException {
+        final Account sor = this.lookup.byId(source, this.horizon);
+        final Account trg = this.lookup.byId(target, this.horizon);
+        this.activities.storeActivity(sor.transfer(trg.accountId(), money));
     }
-
 }
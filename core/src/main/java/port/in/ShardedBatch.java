@@ -0,0 +1,115 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package port.in;
+
+import exception.ConcurrentOperationException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Batch of transfers applied on the shards of its source accounts.
+ *
+ * <p>Every shard of a source account but the last one is parked, so that no other command
+ * changes those accounts, while the last one applies the batch. The commands of a batch are
+ * queued to all of its shards at once, so that two batches are queued in the same order on
+ * every shard they share and never wait for each other.
+ *
+ * @since 1.0
+ */
+final class ShardedBatch {
+
+    /**
+     * Batch transfers applied by the shards, also guarding the queueing of their commands.
+     */
+    private final BatchTransfer batches;
+
+    /**
+     * Main constructor.
+     *
+     * @param batches Batch transfers applied by the shards.
+     */
+    ShardedBatch(final BatchTransfer batches) {
+        this.batches = batches;
+    }
+
+    /**
+     * Park all the shards of a batch but the last one, which applies the batch.
+     *
+     * @param transfers Transfers, applied in order.
+     * @param owners Shard workers of the source accounts, in shard order.
+     * @return Future of the batch, failed with a
+     *  {@link exception.ConcurrentOperationException} if a shard queue is full.
+     */
+    CompletableFuture<Void> apply(final List<Transfer> transfers, final Executor... owners) {
+        final int last = owners.length - 1;
+        final CountDownLatch parked = new CountDownLatch(last);
+        final CountDownLatch released = new CountDownLatch(1);
+        final Runnable parking =
+            () -> {
+                parked.countDown();
+                ShardedBatch.await(released);
+            };
+        final CompletableFuture<Void> result;
+        synchronized (this.batches) {
+            int queued = 0;
+            while (queued < last && ShardedBatch.queue(owners[queued], parking)) {
+                queued += 1;
+            }
+            if (queued == last) {
+                result =
+                    new AsyncCalls(owners[last]).run(
+                        () -> {
+                            try {
+                                parked.await();
+                                this.batches.unlocked(transfers);
+                            } finally {
+                                released.countDown();
+                            }
+                        }
+                    );
+            } else {
+                result = new CompletableFuture<>();
+                result.completeExceptionally(new ConcurrentOperationException());
+            }
+        }
+        if (result.isCompletedExceptionally()) {
+            released.countDown();
+        }
+        return result;
+    }
+
+    /**
+     * Queue a task to a shard.
+     *
+     * @param shard Shard worker.
+     * @param task Task.
+     * @return Whether the shard accepted the task.
+     */
+    private static boolean queue(final Executor shard, final Runnable task) {
+        boolean queued = true;
+        try {
+            shard.execute(task);
+        } catch (final RejectedExecutionException exception) {
+            queued = false;
+        }
+        return queued;
+    }
+
+    /**
+     * Wait for a latch, giving up if the thread is interrupted.
+     *
+     * @param latch Latch.
+     */
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
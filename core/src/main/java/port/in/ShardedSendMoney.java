@@ -0,0 +1,232 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package port.in;
+
+import domain.value.AccountId;
+import domain.value.Horizon;
+import domain.value.Money;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import port.out.LookupAccounts;
+import port.out.LookupBalances;
+import port.out.StoreActivity;
+
+/**
+ * Send money input port with a single writer per account.
+ *
+ * <p>Every account hashes to a shard owned by one worker thread, and commands for an account
+ * are queued to its shard and applied in order without taking any locks. A transfer is owned
+ * by the shard of its source account: only the source balance is checked before storing it,
+ * and money moved into an account can only make later checks on it pass, so the target
+ * shard is not involved. A batch of transfers parks the shards of all its source accounts
+ * while one of them applies it. Accounts changed through this port must not be changed
+ * through a {@link SendMoney} at the same time, or they would have two writers.
+ *
+ * @since 1.0
+ */
+public final class ShardedSendMoney implements AutoCloseable {
+
+    /**
+     * Bits the hash of an account is shifted by, so that its high bits pick a shard too.
+     */
+    private static final int SPREAD = 16;
+
+    /**
+     * Operations applied by the shards.
+     */
+    private final SendMoney operations;
+
+    /**
+     * Batches of transfers applied by the shards.
+     */
+    private final ShardedBatch batches;
+
+    /**
+     * Shard workers.
+     */
+    private final ThreadPoolExecutor[] shards;
+
+    /**
+     * Main constructor.
+     *
+     * @param lookup Lookup accounts port.
+     * @param activities Update account activities.
+     * @param shards Number of shards, rounded up to a power of two.
+     * @param capacity Number of commands a shard queues before rejecting new ones.
+     * @since 1.0
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    public ShardedSendMoney(
+        final LookupAccounts lookup,
+        final StoreActivity activities,
+        final int shards,
+        final int capacity
+    ) {
+        this(
+            new SendMoney(lookup, activities, Horizon.none()),
+            id -> lookup.byId(id, Horizon.none()).balance(),
+            ShardedSendMoney.create(shards, capacity)
+        );
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param operations Operations applied by the shards.
+     * @param balances Lookup balances port of the batch transfers.
+     * @param shards Shard workers, a power of two of them.
+     */
+    private ShardedSendMoney(
+        final SendMoney operations,
+        final LookupBalances balances,
+        final ThreadPoolExecutor... shards
+    ) {
+        this.operations = operations;
+        this.batches = new ShardedBatch(operations.batchTransfer(balances));
+        this.shards = shards.clone();
+    }
+
+    /**
+     * Withdraw money from account on its shard.
+     *
+     * @param id Account Id.
+     * @param money Money account.
+     * @return Future completed once the withdrawal is stored, or failed with an
+     *  {@link exception.InsufficientFundsException} if the account does not have enough money.
+     * @since 1.0
+     */
+    public CompletableFuture<Void> withdraw(final AccountId id, final Money money) {
+        return this.submit(id, () -> this.operations.applyWithdrawal(id, money));
+    }
+
+    /**
+     * Deposit money into account on its shard.
+     *
+     * @param id Account Id.
+     * @param money Money account.
+     * @return Future completed once the deposit is stored.
+     * @since 1.0
+     */
+    public CompletableFuture<Void> deposit(final AccountId id, final Money money) {
+        return this.submit(id, () -> this.operations.applyDeposit(id, money));
+    }
+
+    /**
+     * Send money between accounts on the shard of the source account.
+     *
+     * @param source Source account.
+     * @param target Target account.
+     * @param money Money account.
+     * @return Future completed once the transfer is stored, or failed with an
+     *  {@link exception.InsufficientFundsException} if the source account does not have
+     *  enough money.
+     * @since 1.0
+     */
+    public CompletableFuture<Void> sendMoney(
+        final AccountId source,
+        final AccountId target,
+        final Money money
+    ) {
+        return this.submit(source, () -> this.operations.applyTransfer(source, target, money));
+    }
+
+    /**
+     * Send money for a batch of transfers, all or nothing, on the shards of their source
+     * accounts.
+     *
+     * <p>No other command changes the source accounts while the batch is applied.
+     *
+     * @param transfers Transfers, applied in order.
+     * @return Future completed once all the transfers are stored, or failed with an
+     *  {@link exception.InsufficientFundsException} if a source account does not have enough
+     *  money for one of them.
+     * @since 1.0
+     */
+    public CompletableFuture<Void> transfer(final List<Transfer> transfers) {
+        final ThreadPoolExecutor[] owners =
+            transfers.stream()
+                .map(Transfer::source)
+                .mapToInt(this::shard)
+                .sorted()
+                .distinct()
+                .mapToObj(idx -> this.shards[idx])
+                .toArray(ThreadPoolExecutor[]::new);
+        final CompletableFuture<Void> result;
+        if (owners.length == 0) {
+            result = CompletableFuture.completedFuture(null);
+        } else {
+            result = this.batches.apply(transfers, owners);
+        }
+        return result;
+    }
+
+    @Override
+    public void close() {
+        for (final ThreadPoolExecutor shard : this.shards) {
+            shard.shutdown();
+        }
+    }
+
+    /**
+     * Queue a command to the shard of an account.
+     *
+     * @param account Account Id.
+     * @param command Command.
+     * @return Future of the command, failed with a
+     *  {@link exception.ConcurrentOperationException} if the shard queue is full.
+     */
+    private CompletableFuture<Void> submit(
+        final AccountId account,
+        final AsyncCalls.Action command
+    ) {
+        return new AsyncCalls(this.shards[this.shard(account)]).run(command);
+    }
+
+    /**
+     * Create shard workers, each running one command at a time on its own thread.
+     *
+     * @param shards Number of shards, rounded up to a power of two.
+     * @param capacity Number of commands a shard queues before rejecting new ones.
+     * @return Shard workers.
+     */
+    private static ThreadPoolExecutor[] create(final int shards, final int capacity) {
+        int size = 1;
+        while (size < shards) {
+            size <<= 1;
+        }
+        final ThreadPoolExecutor[] workers = new ThreadPoolExecutor[size];
+        for (int idx = 0; idx < size; idx += 1) {
+            final String name = String.format("send-money-shard-%d", idx);
+            workers[idx] =
+                new ThreadPoolExecutor(
+                    1,
+                    1,
+                    0L,
+                    TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(capacity),
+                    runnable -> {
+                        final Thread thread = new Thread(runnable, name);
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                );
+        }
+        return workers;
+    }
+
+    /**
+     * Shard index of an account.
+     *
+     * @param account Account Id.
+     * @return Shard index.
+     */
+    private int shard(final AccountId account) {
+        final int hash = account.hashCode();
+        return (hash ^ hash >>> ShardedSendMoney.SPREAD) & this.shards.length - 1;
+    }
+}
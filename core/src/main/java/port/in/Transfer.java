@@ -0,0 +1,92 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package port.in;
+
+import domain.value.AccountId;
+import domain.value.Money;
+
+/**
+ * Instruction to send money from one account to another.
+ *
+ * @since 1.0
+ */
+public final class Transfer {
+
+    /**
+     * Source account Id.
+     */
+    private final AccountId from;
+
+    /**
+     * Target account Id.
+     */
+    private final AccountId into;
+
+    /**
+     * Money sent.
+     */
+    private final Money amount;
+
+    /**
+     * Main constructor.
+     *
+     * @param source Source account Id.
+     * @param target Target account Id.
+     * @param money Money sent.
+     */
+    private Transfer(final AccountId source, final AccountId target, final Money money) {
+        this.from = source;
+        this.into = target;
+        this.amount = money;
+    }
+
+    /**
+     * Transfer instruction.
+     *
+     * @param source Source account Id.
+     * @param target Target account Id.
+     * @param money Money sent.
+     * @return Transfer.
+     * @since 1.0
+     */
+    @SuppressWarnings("PMD.ProhibitPublicStaticMethods")
+    public static Transfer with(
+        final AccountId source,
+        final AccountId target,
+        final Money money
+    ) {
+        return new Transfer(source, target, money);
+    }
+
+    /**
+     * Source account Id.
+     *
+     * @return Account Id.
+     * @since 1.0
+     */
+    public AccountId source() {
+        return this.from;
+    }
+
+    /**
+     * Target account Id.
+     *
+     * @return Account Id.
+     * @since 1.0
+     */
+    public AccountId target() {
+        return this.into;
+    }
+
+    /**
+     * Money sent.
+     *
+     * @return Money.
+     * @since 1.0
+     */
+    public Money money() {
+        return this.amount;
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package port.out;
+
+import domain.value.AccountId;
+import domain.value.Activity;
+import domain.value.Money;
+import java.util.Optional;
+
+/**
+ * Summary of an account for listings, with its balance, number of activities and latest
+ * activity but none of its other activities.
+ *
+ * @since 1.0
+ */
+public final class AccountSummary {
+
+    /**
+     * Account Id.
+     */
+    private final AccountId id;
+
+    /**
+     * Account balance.
+     */
+    private final Money money;
+
+    /**
+     * Number of activities.
+     */
+    private final long count;
+
+    /**
+     * Latest activity, null if the account has none.
+     */
+    private final Activity latest;
+
+    /**
+     * Main constructor.
+     *
+     * @param id Account Id.
+     * @param balance Account balance.
+     * @param count Number of activities.
+     * @param latest Latest activity. Can be null.
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    private AccountSummary(
+        final AccountId id,
+        final Money balance,
+        final long count,
+        final Activity latest
+    ) {
+        this.id = id;
+        this.money = balance;
+        this.count = count;
+        this.latest = latest;
+    }
+
+    /**
+     * Account summary.
+     *
+     * @param id Account Id.
+     * @param balance Account balance.
+     * @param count Number of activities.
+     * @param latest Latest activity. Can be null.
+     * @return Account summary.
+     * @since 1.0
+     * @checkstyle ParameterNumberCheck (4 lines)
+     */
+    @SuppressWarnings("PMD.ProhibitPublicStaticMethods")
+    public static AccountSummary with(
+        final AccountId id,
+        final Money balance,
+        final long count,
+        final Activity latest
+    ) {
+        return new AccountSummary(id, balance, count, latest);
+    }
+
+    /**
+     * Account Id.
+     *
+     * @return Account Id.
+     * @since 1.0
+     */
+    public AccountId accountId() {
+        return this.id;
+    }
+
+    /**
+     * Account balance.
+     *
+     * @return Balance.
+     * @since 1.0
+     */
+    public Money balance() {
+        return this.money;
+    }
+
+    /**
+     * Number of activities of the account.
+     *
+     * @return Number of activities, a transfer to itself counting once.
+     * @since 1.0
+     */
+    public long activityCount() {
+        return this.count;
+    }
+
+    /**
+     * Latest activity of the account.
+     *
+     * @return Activity, empty if the account has none.
+     * @since 1.0
+     */
+    public Optional<Activity> latestActivity() {
+        return Optional.ofNullable(this.latest);
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package port.out;
+
+import common.PreConditions;
+import domain.entity.Account;
+import domain.value.AccountId;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Page of accounts ordered by Id, with the keyset cursor of the next page.
+ *
+ * @since 1.0
+ */
+public final class AccountsPage {
+
+    /**
+     * Accounts of the page.
+     */
+    private final List<Account> members;
+
+    /**
+     * Id of the last account of the page, null if there is no next page.
+     */
+    private final AccountId cursor;
+
+    /**
+     * Main constructor.
+     *
+     * @param members Accounts of the page.
+     * @param cursor Id of the last account of the page. Can be null.
+     */
+    private AccountsPage(final List<Account> members, final AccountId cursor) {
+        this.members = members;
+        this.cursor = cursor;
+    }
+
+    /**
+     * Page of accounts read one account past the page size, the extra account telling
+     * that there is a next page.
+     *
+     * @param accounts Accounts ordered by Id, up to one more than the page size.
+     * @param size Page size, positive.
+     * @return Page.
+     * @throws IllegalArgumentException If the page size is not positive.
+     * @since 1.0
+     */
+    @SuppressWarnings("PMD.ProhibitPublicStaticMethods")
+    public static AccountsPage with(
+        final List<Account> accounts,
+        final int size
+    ) throws IllegalArgumentException {
+        AccountsPage.require(size);
+        final AccountsPage page;
+        if (accounts.size() > size) {
+            page = AccountsPage.with(accounts.subList(0, size), true);
+        } else {
+            page = AccountsPage.with(accounts, false);
+        }
+        return page;
+    }
+
+    /**
+     * Page of accounts, knowing whether other accounts follow them.
+     *
+     * @param accounts Accounts of the page ordered by Id.
+     * @param more Whether there is a next page.
+     * @return Page.
+     * @since 1.0
+     */
+    @SuppressWarnings("PMD.ProhibitPublicStaticMethods")
+    public static AccountsPage with(final List<Account> accounts, final boolean more) {
+        final AccountId last;
+        if (more && !accounts.isEmpty()) {
+            last = accounts.get(accounts.size() - 1).accountId();
+        } else {
+            last = null;
+        }
+        return new AccountsPage(Collections.unmodifiableList(accounts), last);
+    }
+
+    /**
+     * Check a page size.
+     *
+     * @param size Page size.
+     * @throws IllegalArgumentException If the page size is not positive.
+     * @since 1.0
+     */
+    @SuppressWarnings("PMD.ProhibitPublicStaticMethods")
+    public static void require(final int size) throws IllegalArgumentException {
+        PreConditions.require(
+            size,
+            value -> value > 0,
+            () -> new IllegalArgumentException("Page size must be positive")
+        );
+    }
+
+    /**
+     * Accounts of the page.
+     *
+     * @return Accounts ordered by Id.
+     * @since 1.0
+     */
+    public List<Account> accounts() {
+        return this.members;
+    }
+
+    /**
+     * Keyset cursor of the next page.
+     *
+     * @return Id of the last account of the page, empty if this is the last page.
+     * @since 1.0
+     */
+    public Optional<AccountId> next() {
+        return Optional.ofNullable(this.cursor);
+    }
+}
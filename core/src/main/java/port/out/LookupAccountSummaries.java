@@ -0,0 +1,27 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package port.out;
+
+import java.util.stream.Stream;
+
+/**
+ * Lookup account summaries output port.
+ *
+ * @since 1.0
+ */
+public interface LookupAccountSummaries {
+
+    /**
+     * Summaries of all accounts, ordered by account Id.
+     *
+     * <p>The stream may be read lazily from the storage and hold resources until it is
+     * closed, so callers should close it once done.
+     *
+     * @return Stream of account summaries.
+     * @throws IllegalStateException If accounts could not be listed.
+     * @since 1.0
+     */
+    Stream<AccountSummary> summaries() throws IllegalStateException;
+}
@@ -6,6 +6,12 @@ package port.out;
 
 import domain.entity.Account;
 import domain.value.AccountId;
+import domain.value.Horizon;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
@@ -24,11 +30,87 @@ public interface LookupAccounts {
      */
     Account byId(AccountId id) throws IllegalArgumentException;
 
+    /**
+     * Find account by Id, loading only the activities within a horizon.
+     *
+     * <p>The default implementation loads the full history, which is within any horizon.
+     *
+     * @param id Account id.
+     * @param horizon How much of the account history to load.
+     * @return Account.
+     * @throws IllegalArgumentException If account is not found.
+     * @since 1.0
+     */
+    default Account byId(AccountId id, Horizon horizon) throws IllegalArgumentException {
+        return this.byId(id);
+    }
+
+    /**
+     * Find accounts by Ids.
+     *
+     * <p>The default implementation finds them one at a time.
+     *
+     * @param ids Account Ids.
+     * @return Accounts by Id, in the order of the Ids.
+     * @throws IllegalArgumentException If any account is not found.
+     * @since 1.0
+     */
+    default Map<AccountId, Account> byIds(
+        Collection<AccountId> ids
+    ) throws IllegalArgumentException {
+        final Map<AccountId, Account> accounts = new LinkedHashMap<>();
+        for (final AccountId id : ids) {
+            accounts.computeIfAbsent(id, this::byId);
+        }
+        return accounts;
+    }
+
     /**
      * All accounts.
      *
+     * <p>The stream may be read lazily from the storage and hold resources until it is
+     * closed, so callers should close it once done.
+     *
      * @return Stream of accounts.
      * @throws IllegalStateException If accounts could not be listed.
      */
     Stream<Account> all() throws IllegalStateException;
+
+    /**
+     * Page of accounts ordered by Id, after a keyset cursor.
+     *
+     * <p>The default implementation reads all the accounts and sorts them, so it costs as
+     * much as reading all of them.
+     *
+     * @param after Id of the last account of the previous page, null for the first page.
+     * @param size Page size, positive.
+     * @return Page.
+     * @throws IllegalArgumentException If the page size is not positive.
+     * @throws IllegalStateException If accounts could not be listed.
+     * @since 1.0
+     */
+    default AccountsPage page(
+        AccountId after,
+        int size
+    ) throws IllegalArgumentException, IllegalStateException {
+        AccountsPage.require(size);
+        final Comparator<AccountId> order = Comparator.comparing(AccountId::uuid);
+        final Stream<Account> accounts = this.all();
+        try {
+            return
+                AccountsPage.with(
+                    accounts
+                        .filter(
+                            account ->
+                                after == null || order.compare(account.accountId(), after) > 0
+                        )
+                        .sorted(Comparator.comparing(Account::accountId, order))
+                        .limit(size + 1L)
+                        .collect(Collectors.toList()),
+                    size
+                );
+        } finally {
+            accounts.close();
+        }
+    }
 }
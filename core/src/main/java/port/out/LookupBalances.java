@@ -0,0 +1,50 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package port.out;
+
+import domain.value.AccountId;
+import domain.value.Money;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Lookup balances output port, for storages that can compute a balance without loading the
+ * account activities.
+ *
+ * @since 1.0
+ */
+public interface LookupBalances {
+
+    /**
+     * Current balance of an account.
+     *
+     * @param id Account Id.
+     * @return Balance.
+     * @throws IllegalArgumentException If account is not found.
+     * @since 1.0
+     */
+    Money balance(AccountId id) throws IllegalArgumentException;
+
+    /**
+     * Current balances of accounts.
+     *
+     * <p>The default implementation looks them up one at a time.
+     *
+     * @param ids Account Ids.
+     * @return Balances by account Id, in the order of the Ids.
+     * @throws IllegalArgumentException If any account is not found.
+     * @since 1.0
+     */
+    default Map<AccountId, Money> balances(
+        Collection<AccountId> ids
+    ) throws IllegalArgumentException {
+        final Map<AccountId, Money> balances = new LinkedHashMap<>();
+        for (final AccountId id : ids) {
+            balances.computeIfAbsent(id, this::balance);
+        }
+        return balances;
+    }
+}
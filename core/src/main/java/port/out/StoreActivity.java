@@ -5,6 +5,7 @@
 package port.out;
 
 import domain.value.Activity;
+import java.util.Collection;
 
 /**
  * Store account activity.
@@ -20,4 +21,19 @@ public interface StoreActivity {
      * @since 1.0
      */
     void storeActivity(Activity activity) throws IllegalStateException;
+
+    /**
+     * Store account activities at once.
+     *
+     * <p>The default implementation stores them one at a time.
+     *
+     * @param activities Activities.
+     * @throws IllegalStateException If storing activities failed.
+     * @since 1.0
+     */
+    default void storeActivities(Collection<Activity> activities) throws IllegalStateException {
+        for (final Activity activity : activities) {
+            this.storeActivity(activity);
+        }
+    }
 }
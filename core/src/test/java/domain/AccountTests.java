@@ -12,6 +12,10 @@ import domain.value.Money;
 import exception.InsufficientFundsException;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -103,4 +107,105 @@ public class AccountTests {
         // @checkstyle MagicNumber (1 line)
         Assertions.assertEquals(800, account.balance().value());
     }
+
+    /**
+     * Test balance calculations at a point in time.
+     *
+     * @since 1.0
+     * @checkstyle NonStaticMethodCheck (3 lines)
+     */
+    @Test
+    void calculatesBalanceAtPointInTime() {
+        final AccountId id = AccountId.create();
+        // @checkstyle MagicNumber (1 line)
+        final LocalDateTime time = LocalDateTime.of(2020, 8, 1, 10, 30);
+        final Account account =
+            Account.with(
+                id,
+                Money.with(1000),
+                ActivityWindow.with(
+                    time,
+                    Arrays.asList(
+                        Activity.with(null, id, time.plusDays(1), Money.with(200)),
+                        Activity.with(id, AccountId.create(), time.plusDays(2), Money.with(400))
+                    )
+                )
+            );
+        // @checkstyle MagicNumber (6 lines)
+        Assertions.assertEquals(1000, account.balance(time.minusDays(1)).value());
+        Assertions.assertEquals(1200, account.balance(time.plusDays(1)).value());
+        Assertions.assertEquals(1200, account.balance(time.plusDays(2).minusNanos(1)).value());
+        Assertions.assertEquals(800, account.balance(time.plusDays(2)).value());
+        Assertions.assertEquals(
+            Arrays.asList(Money.with(1200), Money.with(800)),
+            account.balances().stream().map(Map.Entry::getValue).collect(Collectors.toList())
+        );
+    }
+
+    /**
+     * Test balances before the activity window roll back through the older activities.
+     *
+     * @since 1.0
+     * @checkstyle NonStaticMethodCheck (3 lines)
+     */
+    @Test
+    void calculatesBalanceBeforeWindow() {
+        final AccountId id = AccountId.create();
+        // @checkstyle MagicNumber (18 lines)
+        final LocalDateTime time = LocalDateTime.of(2020, 8, 1, 10, 30);
+        final Account account =
+            Account.with(
+                id,
+                Money.with(1000),
+                ActivityWindow.with(
+                    time,
+                    time.plusDays(2),
+                    Collections.singletonList(
+                        Activity.with(null, id, time.plusDays(1), Money.with(200))
+                    ),
+                    () ->
+                        Stream.of(
+                            Activity.with(null, id, time.minusDays(2), Money.with(700)),
+                            Activity.with(id, null, time.minusDays(1), Money.with(100)),
+                            Activity.with(id, AccountId.create(), time, Money.with(300))
+                        )
+                )
+            );
+        // @checkstyle MagicNumber (4 lines)
+        Assertions.assertEquals(1000, account.balance(time).value());
+        Assertions.assertEquals(1300, account.balance(time.minusHours(1)).value());
+        Assertions.assertEquals(1400, account.balance(time.minusDays(1).minusNanos(1)).value());
+        Assertions.assertEquals(700, account.balance(time.minusDays(3)).value());
+    }
+
+    /**
+     * Test activities at the same time each keep their balance.
+     *
+     * @since 1.0
+     * @checkstyle NonStaticMethodCheck (3 lines)
+     */
+    @Test
+    void keepsBalancesOfSimultaneousActivities() {
+        final AccountId id = AccountId.create();
+        // @checkstyle MagicNumber (1 line)
+        final LocalDateTime time = LocalDateTime.of(2020, 8, 1, 10, 30);
+        final Account account =
+            Account.with(
+                id,
+                Money.with(1000),
+                ActivityWindow.with(
+                    time,
+                    Arrays.asList(
+                        Activity.with(null, id, time.plusDays(1), Money.with(200)),
+                        Activity.with(id, null, time.plusDays(1), Money.with(50))
+                    )
+                )
+            );
+        Assertions.assertEquals(
+            Arrays.asList(time.plusDays(1), time.plusDays(1)),
+            account.balances().stream().map(Map.Entry::getKey).collect(Collectors.toList())
+        );
+        // @checkstyle MagicNumber (1 line)
+        Assertions.assertEquals(1150, account.balance(time.plusDays(1)).value());
+    }
 }
@@ -10,6 +10,11 @@ import domain.value.ActivityWindow;
 import domain.value.Money;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -66,6 +71,169 @@ public class ActivityWindowTests {
         Assertions.assertEquals(800, window.withdrawnFromAccount(id).value());
     }
 
+    /**
+     * Test aggregations are kept up to date when activities are added.
+     *
+     * @since 1.0
+     * @checkstyle NonStaticMethodCheck (3 lines)
+     */
+    @Test
+    void updatesAggregatesWhenActivitiesAreAdded() {
+        final AccountId id = AccountId.create();
+        final LocalDateTime now = LocalDateTime.now();
+        final ActivityWindow window =
+            ActivityWindow.with(
+                now,
+                Arrays.asList(
+                    Activity.with(null, id, now.minusDays(1), Money.with(500)),
+                    Activity.deposit(id, Money.with(200))
+                )
+            );
+        // @checkstyle MagicNumber (6 lines)
+        window.addActivity(Activity.transfer(AccountId.create(), id, Money.with(100)));
+        window.addActivity(Activity.transfer(id, AccountId.create(), Money.with(50)));
+        Assertions.assertEquals(300, window.depositedIntoAccount(id).value());
+        Assertions.assertEquals(50, window.withdrawnFromAccount(id).value());
+        Assertions.assertEquals(800, window.depositedIntoAccount(id, now.minusDays(2)).value());
+        Assertions.assertEquals(50, window.withdrawnFromAccount(id, now.minusDays(2)).value());
+    }
+
+    /**
+     * Test activities read from the window are the ones added to it.
+     *
+     * @since 1.0
+     * @checkstyle NonStaticMethodCheck (3 lines)
+     */
+    @Test
+    void returnsActivitiesAddedToIt() {
+        final AccountId id = AccountId.create();
+        final AccountId another = AccountId.create();
+        // @checkstyle MagicNumber (1 line)
+        final LocalDateTime time = LocalDateTime.of(2020, 8, 1, 10, 30, 15, 123_456_000);
+        final List<Activity> activities =
+            Arrays.asList(
+                Activity.with(null, id, time, Money.with(200)),
+                Activity.with(id, null, time.plusHours(1), Money.with(12.5)),
+                Activity.with(another, id, time.plusHours(2), Money.with(0.75))
+            );
+        final ActivityWindow window = ActivityWindow.with(time, activities);
+        Assertions.assertEquals(
+            activities,
+            window.all().distinct().sorted().collect(Collectors.toList())
+        );
+        Assertions.assertEquals(
+            activities.subList(1, activities.size()),
+            window.filtered(time.plusMinutes(1)).distinct().sorted().collect(Collectors.toList())
+        );
+    }
+
+    /**
+     * Test activities added out of order are found by time.
+     *
+     * @since 1.0
+     * @checkstyle NonStaticMethodCheck (3 lines)
+     */
+    @Test
+    void findsActivitiesAddedOutOfOrder() {
+        final AccountId id = AccountId.create();
+        // @checkstyle MagicNumber (1 line)
+        final LocalDateTime time = LocalDateTime.of(2020, 8, 1, 10, 30);
+        final ActivityWindow window = ActivityWindow.with(time, Collections.emptyList());
+        // @checkstyle MagicNumber (8 lines)
+        window.addActivity(Activity.with(null, id, time.plusDays(3), Money.with(30)));
+        window.addActivity(Activity.with(null, id, time.plusDays(1), Money.with(10)));
+        window.addActivity(Activity.with(id, null, time.plusDays(2), Money.with(20)));
+        Assertions.assertEquals(30, window.depositedIntoAccount(id, time.plusDays(2)).value());
+        Assertions.assertEquals(20, window.withdrawnFromAccount(id, time.plusDays(2)).value());
+        Assertions.assertEquals(
+            Arrays.asList(time.plusDays(2), time.plusDays(3)),
+            window.filtered(time.plusDays(2))
+                .map(activity -> activity.timestamp)
+                .collect(Collectors.toList())
+        );
+    }
+
+    /**
+     * Test balances stay right when activities are added out of order after being read.
+     *
+     * @since 1.0
+     * @checkstyle NonStaticMethodCheck (3 lines)
+     */
+    @Test
+    void movesMoneyOfActivitiesAddedOutOfOrder() {
+        final AccountId id = AccountId.create();
+        // @checkstyle MagicNumber (1 line)
+        final LocalDateTime time = LocalDateTime.of(2020, 8, 1, 10, 30);
+        final ActivityWindow window = ActivityWindow.with(time, Collections.emptyList());
+        // @checkstyle MagicNumber (10 lines)
+        window.addActivity(Activity.with(null, id, time.plusDays(3), Money.with(30)));
+        window.addActivity(Activity.with(null, id, time.plusDays(1), Money.with(10)));
+        window.addActivity(Activity.with(id, null, time.plusDays(2), Money.with(20)));
+        Assertions.assertEquals(-10, window.movedUntil(id, time.plusDays(2)).value());
+        Assertions.assertEquals(20, window.movedUntil(id, time.plusDays(3)).value());
+        window.addActivity(Activity.with(null, id, time.plusHours(36), Money.with(5)));
+        window.addActivity(Activity.with(null, id, time.plusDays(4), Money.with(1)));
+        Assertions.assertEquals(-5, window.movedUntil(id, time.plusDays(2)).value());
+        Assertions.assertEquals(26, window.movedUntil(id, time.plusDays(4)).value());
+    }
+
+    /**
+     * Test activities read back are equal to the ones added, whatever the precision of
+     * their timestamp.
+     *
+     * @since 1.0
+     * @checkstyle NonStaticMethodCheck (3 lines)
+     */
+    @Test
+    void returnsActivitiesWithNanosecondTimestamps() {
+        final AccountId id = AccountId.create();
+        // @checkstyle MagicNumber (1 line)
+        final LocalDateTime time = LocalDateTime.of(2020, 8, 1, 10, 30, 15, 123_456_789);
+        final Activity activity = Activity.with(null, id, time, Money.with(1));
+        final ActivityWindow window = ActivityWindow.with(time, Collections.emptyList());
+        window.addActivity(activity);
+        Assertions.assertEquals(
+            Collections.singletonList(activity),
+            window.all().collect(Collectors.toList())
+        );
+        // @checkstyle MagicNumber (1 line)
+        Assertions.assertEquals(123_456_000, activity.timestamp.getNano());
+    }
+
+    /**
+     * Test activities before the window start are only fetched when iterated past it.
+     *
+     * @since 1.0
+     * @checkstyle NonStaticMethodCheck (3 lines)
+     */
+    @Test
+    void fetchesOlderActivitiesLazily() {
+        final AccountId id = AccountId.create();
+        // @checkstyle MagicNumber (1 line)
+        final LocalDateTime time = LocalDateTime.of(2020, 8, 1, 10, 30);
+        final AtomicInteger fetches = new AtomicInteger();
+        final ActivityWindow window =
+            ActivityWindow.with(
+                time,
+                time.plusDays(2),
+                Collections.singletonList(
+                    Activity.with(null, id, time.plusDays(1), Money.with(10))
+                ),
+                () -> {
+                    fetches.incrementAndGet();
+                    // @checkstyle MagicNumber (1 line)
+                    return Stream.of(Activity.with(null, id, time.minusDays(1), Money.with(20)));
+                }
+            );
+        // @checkstyle MagicNumber (1 line)
+        Assertions.assertEquals(10, window.depositedIntoAccount(id).value());
+        Assertions.assertEquals(1, window.filtered(time).count());
+        Assertions.assertEquals(0, fetches.get());
+        Assertions.assertEquals(2, window.all().count());
+        Assertions.assertEquals(2, window.filtered(time.minusDays(2)).count());
+        Assertions.assertEquals(2, fetches.get());
+    }
+
     /**
      * Test modifying normal activity window.
      *
@@ -0,0 +1,56 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package domain;
+
+import domain.value.Money;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Money value object tests.
+ *
+ * @since 1.0
+ */
+public class MoneyTests {
+
+    /**
+     * Test conversion from double values into minor units.
+     *
+     * @since 1.0
+     * @checkstyle NonStaticMethodCheck (3 lines)
+     */
+    @Test
+    void convertsDoubleIntoMinorUnits() {
+        // @checkstyle MagicNumber (3 lines)
+        Assertions.assertEquals(1005, Money.with(10.05).minorUnits());
+        Assertions.assertEquals(Money.with(0.3), Money.with(0.1).plus(Money.with(0.2)));
+        Assertions.assertEquals(10.05, Money.with(10.05).value());
+    }
+
+    /**
+     * Test arithmetic overflow is detected.
+     *
+     * @since 1.0
+     * @checkstyle NonStaticMethodCheck (3 lines)
+     */
+    @Test
+    void failsOnOverflow() {
+        Assertions.assertThrows(
+            ArithmeticException.class,
+            () -> Money.inMinorUnits(Long.MAX_VALUE).plus(Money.inMinorUnits(1))
+        );
+    }
+
+    /**
+     * Test small amounts are cached.
+     *
+     * @since 1.0
+     * @checkstyle NonStaticMethodCheck (3 lines)
+     */
+    @Test
+    void cachesSmallAmounts() {
+        Assertions.assertSame(Money.with(0), Money.with(2).minus(Money.with(2)));
+    }
+}
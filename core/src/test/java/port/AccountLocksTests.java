@@ -0,0 +1,116 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package port;
+
+import domain.value.AccountId;
+import exception.ConcurrentOperationException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import port.in.AccountLocks;
+
+/**
+ * Account locks tests.
+ *
+ * @since 1.0
+ */
+public class AccountLocksTests {
+
+    /**
+     * Test locking the same account twice in one call.
+     *
+     * @since 1.0
+     * @checkstyle NonStaticMethodCheck (3 lines)
+     */
+    @Test
+    void locksSameAccountOnce() {
+        final AccountLocks locks = new AccountLocks(1, Duration.ZERO);
+        final AccountId id = AccountId.create();
+        final AtomicBoolean ran = new AtomicBoolean();
+        Assertions.assertDoesNotThrow(
+            () -> locks.locked(() -> ran.set(true), id, id, AccountId.create())
+        );
+        Assertions.assertTrue(ran.get());
+    }
+
+    /**
+     * Test waiting for an account held by another thread.
+     *
+     * @throws Exception If waiting for the other thread fails.
+     * @since 1.0
+     * @checkstyle NonStaticMethodCheck (3 lines)
+     */
+    @Test
+    void waitsForLockedAccount() throws Exception {
+        // @checkstyle MagicNumber (1 line)
+        final AccountLocks locks = new AccountLocks(16, Duration.ofSeconds(5));
+        final AccountId id = AccountId.create();
+        final CountDownLatch held = new CountDownLatch(1);
+        final CompletableFuture<Void> holder =
+            CompletableFuture.runAsync(
+                () -> {
+                    try {
+                        locks.locked(
+                            () -> {
+                                held.countDown();
+                                // @checkstyle MagicNumber (1 line)
+                                Thread.sleep(100);
+                            },
+                            id
+                        );
+                    } catch (final ConcurrentOperationException | InterruptedException ex) {
+                        throw new IllegalStateException(ex);
+                    }
+                }
+            );
+        held.await();
+        final AtomicBoolean ran = new AtomicBoolean();
+        locks.locked(() -> ran.set(true), id);
+        holder.join();
+        Assertions.assertTrue(ran.get());
+    }
+
+    /**
+     * Test giving up on an account held for too long.
+     *
+     * @throws Exception If waiting for the other thread fails.
+     * @since 1.0
+     * @checkstyle NonStaticMethodCheck (3 lines)
+     */
+    @Test
+    void failsWhenLockIsNotAcquiredInTime() throws Exception {
+        // @checkstyle MagicNumber (1 line)
+        final AccountLocks locks = new AccountLocks(16, Duration.ofMillis(10));
+        final AccountId id = AccountId.create();
+        final CountDownLatch held = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CompletableFuture<Void> holder =
+            CompletableFuture.runAsync(
+                () -> {
+                    try {
+                        locks.locked(
+                            () -> {
+                                held.countDown();
+                                release.await();
+                            },
+                            id
+                        );
+                    } catch (final ConcurrentOperationException | InterruptedException ex) {
+                        throw new IllegalStateException(ex);
+                    }
+                }
+            );
+        held.await();
+        Assertions.assertThrows(
+            ConcurrentOperationException.class,
+            () -> locks.locked(() -> { }, id)
+        );
+        release.countDown();
+        holder.join();
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package port;
+
+import domain.entity.Account;
+import domain.value.AccountId;
+import domain.value.Money;
+import exception.ConcurrentOperationException;
+import exception.InsufficientFundsException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import port.in.AsyncSendMoney;
+import port.in.SendMoney;
+import port.out.LookupAccounts;
+
+/**
+ * Asynchronous send money tests.
+ *
+ * @since 1.0
+ */
+public class AsyncSendMoneyTests {
+
+    /**
+     * Test failures of the blocking port are passed to the future as they are.
+     *
+     * @since 1.0
+     * @checkstyle NonStaticMethodCheck (3 lines)
+     */
+    @Test
+    void failsWithTheExceptionOfThePort() {
+        final AsyncSendMoney sending =
+            new AsyncSendMoney(
+                new SendMoney(AsyncSendMoneyTests.lookup(), activity -> { }),
+                Runnable::run
+            );
+        final CompletionException failure =
+            Assertions.assertThrows(
+                CompletionException.class,
+                () -> sending.withdraw(AccountId.create(), Money.with(1)).join()
+            );
+        Assertions.assertTrue(failure.getCause() instanceof InsufficientFundsException);
+    }
+
+    /**
+     * Test errors of the blocking port fail the future instead of leaving it pending.
+     *
+     * @since 1.0
+     * @checkstyle NonStaticMethodCheck (3 lines)
+     */
+    @Test
+    void failsWithTheErrorOfThePort() {
+        final AsyncSendMoney sending =
+            new AsyncSendMoney(
+                new SendMoney(
+                    AsyncSendMoneyTests.lookup(),
+                    activity -> {
+                        throw new AssertionError();
+                    }
+                ),
+                Runnable::run
+            );
+        final CompletionException failure =
+            Assertions.assertThrows(
+                CompletionException.class,
+                () -> sending.deposit(AccountId.create(), Money.with(1)).join()
+            );
+        Assertions.assertTrue(failure.getCause() instanceof AssertionError);
+    }
+
+    /**
+     * Test calls rejected by the executor fail as concurrent operations.
+     *
+     * @since 1.0
+     * @checkstyle NonStaticMethodCheck (3 lines)
+     */
+    @Test
+    void failsWhenTheExecutorRejectsTheCall() {
+        final AsyncSendMoney sending =
+            new AsyncSendMoney(
+                new SendMoney(AsyncSendMoneyTests.lookup(), activity -> { }),
+                runnable -> {
+                    throw new RejectedExecutionException();
+                }
+            );
+        final CompletionException failure =
+            Assertions.assertThrows(
+                CompletionException.class,
+                () -> sending.deposit(AccountId.create(), Money.with(1)).join()
+            );
+        Assertions.assertTrue(failure.getCause() instanceof ConcurrentOperationException);
+    }
+
+    /**
+     * Test calls cancelled by the executor cancel the future instead of leaving it pending.
+     *
+     * @since 1.0
+     * @checkstyle NonStaticMethodCheck (3 lines)
+     */
+    @Test
+    void isCancelledWhenTheExecutorCancelsTheCall() {
+        final AsyncSendMoney sending =
+            new AsyncSendMoney(
+                new SendMoney(AsyncSendMoneyTests.lookup(), activity -> { }),
+                runnable -> ((Future<?>) runnable).cancel(false)
+            );
+        Assertions.assertTrue(
+            sending.deposit(AccountId.create(), Money.with(1)).isCancelled()
+        );
+    }
+
+    /**
+     * Lookup of empty accounts.
+     *
+     * @return Lookup accounts port.
+     */
+    private static LookupAccounts lookup() {
+        return
+            new LookupAccounts() {
+                @Override
+                public Account byId(final AccountId account) {
+                    return Account.with(account, Money.with(0));
+                }
+
+                @Override
+                public Stream<Account> all() {
+                    return Stream.empty();
+                }
+            };
+    }
+}
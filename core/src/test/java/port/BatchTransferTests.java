@@ -0,0 +1,118 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package port;
+
+import domain.value.AccountId;
+import domain.value.Activity;
+import domain.value.Money;
+import exception.InsufficientFundsException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import port.in.AccountLocks;
+import port.in.BatchTransfer;
+import port.in.Transfer;
+import port.out.StoreActivity;
+
+/**
+ * Batch transfer tests.
+ *
+ * @since 1.0
+ * @checkstyle MagicNumber (100 lines)
+ */
+public class BatchTransferTests {
+
+    /**
+     * Test transfers may spend money received earlier in the same batch.
+     *
+     * @since 1.0
+     * @throws Exception If the transfers fail.
+     * @checkstyle NonStaticMethodCheck (3 lines)
+     */
+    @Test
+    void storesAllTransfersAtOnce() throws Exception {
+        final AccountId payer = AccountId.create();
+        final AccountId first = AccountId.create();
+        final AccountId second = AccountId.create();
+        final Map<AccountId, Money> balances = new HashMap<>();
+        balances.put(payer, Money.with(100));
+        balances.put(first, Money.with(0));
+        balances.put(second, Money.with(0));
+        final List<Collection<Activity>> stored = new ArrayList<>(1);
+        new BatchTransfer(
+            balances::get,
+            BatchTransferTests.recording(stored),
+            new AccountLocks(16, Duration.ZERO)
+        ).transfer(
+            Arrays.asList(
+                Transfer.with(payer, first, Money.with(60)),
+                Transfer.with(payer, second, Money.with(40)),
+                Transfer.with(first, second, Money.with(50))
+            )
+        );
+        Assertions.assertEquals(1, stored.size());
+        Assertions.assertEquals(3, stored.get(0).size());
+    }
+
+    /**
+     * Test nothing is stored if any transfer is not covered.
+     *
+     * @since 1.0
+     * @checkstyle NonStaticMethodCheck (3 lines)
+     */
+    @Test
+    void storesNothingIfAnyTransferIsNotCovered() {
+        final AccountId payer = AccountId.create();
+        final AccountId payee = AccountId.create();
+        final Map<AccountId, Money> balances = new HashMap<>();
+        balances.put(payer, Money.with(100));
+        balances.put(payee, Money.with(0));
+        final List<Collection<Activity>> stored = new ArrayList<>(1);
+        final BatchTransfer batch =
+            new BatchTransfer(
+                balances::get,
+                BatchTransferTests.recording(stored),
+                new AccountLocks(16, Duration.ZERO)
+            );
+        Assertions.assertThrows(
+            InsufficientFundsException.class,
+            () ->
+                batch.transfer(
+                    Arrays.asList(
+                        Transfer.with(payer, payee, Money.with(60)),
+                        Transfer.with(payer, payee, Money.with(60))
+                    )
+                )
+        );
+        Assertions.assertTrue(stored.isEmpty());
+    }
+
+    /**
+     * Store activities port recording each call.
+     *
+     * @param stored Activities stored by each call.
+     * @return Store activities port.
+     */
+    private static StoreActivity recording(final List<Collection<Activity>> stored) {
+        return
+            new StoreActivity() {
+                @Override
+                public void storeActivity(final Activity activity) {
+                    stored.add(Arrays.asList(activity));
+                }
+
+                @Override
+                public void storeActivities(final Collection<Activity> activities) {
+                    stored.add(activities);
+                }
+            };
+    }
+}
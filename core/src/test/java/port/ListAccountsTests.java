@@ -0,0 +1,107 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package port;
+
+import domain.entity.Account;
+import domain.value.AccountId;
+import domain.value.Money;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import port.in.ListAccounts;
+import port.out.AccountsPage;
+import port.out.LookupAccounts;
+
+/**
+ * List accounts tests.
+ *
+ * @since 1.0
+ */
+public class ListAccountsTests {
+
+    /**
+     * Test following the page cursors lists every account once.
+     *
+     * @since 1.0
+     * @checkstyle NonStaticMethodCheck (3 lines)
+     * @checkstyle MagicNumber (30 lines)
+     */
+    @Test
+    void pagesThroughAllAccounts() {
+        final List<Account> accounts =
+            IntStream.range(0, 7)
+                .mapToObj(idx -> Account.with(AccountId.create(), Money.with(idx)))
+                .collect(Collectors.toList());
+        final ListAccounts list = new ListAccounts(ListAccountsTests.lookup(accounts));
+        final List<AccountId> listed = new ArrayList<>(accounts.size());
+        AccountsPage page = list.page(null, 3);
+        listed.addAll(ListAccountsTests.ids(page));
+        while (page.next().isPresent()) {
+            Assertions.assertEquals(3, page.accounts().size());
+            page = list.page(page.next().get(), 3);
+            listed.addAll(ListAccountsTests.ids(page));
+        }
+        Assertions.assertEquals(1, page.accounts().size());
+        Assertions.assertEquals(7, listed.size());
+        Assertions.assertTrue(
+            listed.containsAll(
+                accounts.stream().map(Account::accountId).collect(Collectors.toList())
+            )
+        );
+    }
+
+    /**
+     * Test a page size must be positive, for the input port and the output port.
+     *
+     * @since 1.0
+     * @checkstyle NonStaticMethodCheck (3 lines)
+     */
+    @Test
+    void rejectsEmptyPages() {
+        final LookupAccounts lookup = ListAccountsTests.lookup(new ArrayList<>(0));
+        final ListAccounts list = new ListAccounts(lookup);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> list.page(null, 0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> lookup.page(null, 0));
+    }
+
+    /**
+     * Lookup of a fixed list of accounts.
+     *
+     * @param accounts Accounts.
+     * @return Lookup accounts port.
+     */
+    private static LookupAccounts lookup(final List<Account> accounts) {
+        return
+            new LookupAccounts() {
+                @Override
+                public Account byId(final AccountId id) {
+                    return
+                        accounts.stream()
+                            .filter(account -> account.accountId().equals(id))
+                            .findFirst()
+                            .orElseThrow(IllegalArgumentException::new);
+                }
+
+                @Override
+                public Stream<Account> all() {
+                    return accounts.stream();
+                }
+            };
+    }
+
+    /**
+     * Ids of the accounts of a page.
+     *
+     * @param page Page.
+     * @return Account Ids.
+     */
+    private static List<AccountId> ids(final AccountsPage page) {
+        return page.accounts().stream().map(Account::accountId).collect(Collectors.toList());
+    }
+}
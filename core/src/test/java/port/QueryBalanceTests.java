@@ -0,0 +1,74 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package port;
+
+import domain.entity.Account;
+import domain.value.AccountId;
+import domain.value.Money;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import port.in.QueryBalance;
+import port.out.LookupAccounts;
+
+/**
+ * Query balance tests.
+ *
+ * @since 1.0
+ */
+public class QueryBalanceTests {
+
+    /**
+     * Test the balances of several accounts are looked up at once without a balances port.
+     *
+     * @since 1.0
+     * @checkstyle NonStaticMethodCheck (3 lines)
+     * @checkstyle MagicNumber (40 lines)
+     */
+    @Test
+    void looksUpBalancesOfSeveralAccountsAtOnce() {
+        final List<Account> accounts =
+            Arrays.asList(
+                Account.with(AccountId.create(), Money.with(10)),
+                Account.with(AccountId.create(), Money.with(20))
+            );
+        final AtomicInteger lookups = new AtomicInteger();
+        final QueryBalance query =
+            new QueryBalance(
+                new LookupAccounts() {
+                    @Override
+                    public Account byId(final AccountId id) {
+                        throw new UnsupportedOperationException();
+                    }
+
+                    @Override
+                    public Map<AccountId, Account> byIds(final Collection<AccountId> ids) {
+                        lookups.incrementAndGet();
+                        return
+                            accounts.stream()
+                                .collect(Collectors.toMap(Account::accountId, acc -> acc));
+                    }
+
+                    @Override
+                    public Stream<Account> all() {
+                        return accounts.stream();
+                    }
+                }
+            );
+        final Map<AccountId, Money> balances =
+            query.getAccountBalances(
+                Arrays.asList(accounts.get(0).accountId(), accounts.get(1).accountId())
+            );
+        Assertions.assertEquals(1, lookups.get());
+        Assertions.assertEquals(10, balances.get(accounts.get(0).accountId()).value());
+        Assertions.assertEquals(20, balances.get(accounts.get(1).accountId()).value());
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package port;
+
+import domain.entity.Account;
+import domain.value.AccountId;
+import domain.value.Activity;
+import domain.value.ActivityWindow;
+import domain.value.Money;
+import exception.InsufficientFundsException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import port.in.ShardedSendMoney;
+import port.in.Transfer;
+import port.out.LookupAccounts;
+
+/**
+ * Sharded send money tests.
+ *
+ * @since 1.0
+ */
+public class ShardedSendMoneyTests {
+
+    /**
+     * Test concurrent withdrawals from one account never overdraw it.
+     *
+     * @since 1.0
+     * @checkstyle NonStaticMethodCheck (3 lines)
+     * @checkstyle MagicNumber (40 lines)
+     */
+    @Test
+    void appliesCommandsOfAnAccountInOrder() {
+        final AccountId id = AccountId.create();
+        final AccountId other = AccountId.create();
+        final List<Activity> stored = new CopyOnWriteArrayList<>();
+        final LookupAccounts lookup = ShardedSendMoneyTests.lookup(stored);
+        try (ShardedSendMoney shards = new ShardedSendMoney(lookup, stored::add, 4, 1000)) {
+            final List<CompletableFuture<Void>> futures =
+                IntStream.range(0, 150)
+                    .mapToObj(
+                        idx -> shards.sendMoney(id, other, Money.with(1))
+                    )
+                    .collect(Collectors.toList());
+            final long failed = ShardedSendMoneyTests.failures(futures);
+            // @checkstyle MagicNumber (3 lines)
+            Assertions.assertEquals(50, failed);
+            Assertions.assertEquals(0, lookup.byId(id).balance().value());
+            Assertions.assertEquals(200, lookup.byId(other).balance().value());
+        }
+    }
+
+    /**
+     * Test batches never overdraw an account withdrawn from at the same time.
+     *
+     * @since 1.0
+     * @checkstyle NonStaticMethodCheck (3 lines)
+     * @checkstyle MagicNumber (40 lines)
+     */
+    @Test
+    void appliesBatchesWithTheCommandsOfTheirSources() {
+        final AccountId first = AccountId.create();
+        final AccountId second = AccountId.create();
+        final AccountId target = AccountId.create();
+        final List<Activity> stored = new CopyOnWriteArrayList<>();
+        final LookupAccounts lookup = ShardedSendMoneyTests.lookup(stored);
+        try (ShardedSendMoney shards = new ShardedSendMoney(lookup, stored::add, 8, 1000)) {
+            final List<CompletableFuture<Void>> batches =
+                IntStream.range(0, 80)
+                    .mapToObj(
+                        idx -> shards.transfer(
+                            Arrays.asList(
+                                Transfer.with(first, target, Money.with(1)),
+                                Transfer.with(second, target, Money.with(1))
+                            )
+                        )
+                    )
+                    .collect(Collectors.toList());
+            final List<CompletableFuture<Void>> withdrawals =
+                IntStream.range(0, 80)
+                    .mapToObj(idx -> shards.withdraw(first, Money.with(1)))
+                    .collect(Collectors.toList());
+            final long sent = batches.size() - ShardedSendMoneyTests.failures(batches);
+            final long withdrawn =
+                withdrawals.size() - ShardedSendMoneyTests.failures(withdrawals);
+            Assertions.assertEquals(100, sent + withdrawn);
+            Assertions.assertEquals(0, lookup.byId(first).balance().value());
+            Assertions.assertEquals(100 - sent, lookup.byId(second).balance().value());
+            Assertions.assertEquals(100 + 2 * sent, lookup.byId(target).balance().value());
+        }
+    }
+
+    /**
+     * Lookup of accounts starting with 100 and changed by stored activities.
+     *
+     * @param stored Stored activities.
+     * @return Lookup accounts port.
+     * @checkstyle MagicNumber (20 lines)
+     */
+    private static LookupAccounts lookup(final List<Activity> stored) {
+        final LocalDateTime start = LocalDateTime.now().minusDays(1);
+        return
+            new LookupAccounts() {
+                @Override
+                public Account byId(final AccountId account) {
+                    return
+                        Account.with(
+                            account,
+                            Money.with(100),
+                            ActivityWindow.with(start, stored)
+                        );
+                }
+
+                @Override
+                public Stream<Account> all() {
+                    return Stream.empty();
+                }
+            };
+    }
+
+    /**
+     * Wait for commands and count those failed for lack of money.
+     *
+     * @param futures Futures of the commands.
+     * @return Number of commands failed with an insufficient funds exception.
+     */
+    private static long failures(final List<CompletableFuture<Void>> futures) {
+        return
+            futures.stream()
+                .filter(
+                    future -> {
+                        boolean insufficient = false;
+                        try {
+                            future.join();
+                        } catch (final CompletionException ex) {
+                            insufficient = ex.getCause() instanceof InsufficientFundsException;
+                        }
+                        return insufficient;
+                    }
+                )
+                .count();
+    }
+}
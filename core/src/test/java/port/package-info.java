@@ -0,0 +1,9 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+
+/**
+ * Ports tests.
+ */
+package port;
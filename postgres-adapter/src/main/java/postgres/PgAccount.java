@@ -9,9 +9,14 @@ import domain.value.AccountId;
 import domain.value.Activity;
 import domain.value.ActivityWindow;
 import domain.value.Money;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * Account entity.
@@ -25,33 +30,48 @@ public final class PgAccount {
      *
      * @checkstyle VisibilityModifierCheck (3 lines)
      */
-    final String id;
+    final UUID id;
 
     /**
-     * Starting balance.
+     * Starting balance, or the latest snapshot balance, in minor units.
      *
      * @checkstyle VisibilityModifierCheck (3 lines)
      */
-    final Double balance;
+    final long balance;
 
     /**
-     * Activities list.
+     * Time covered by the balance snapshot, null if there is no snapshot.
      *
      * @checkstyle VisibilityModifierCheck (3 lines)
      */
-    final List<PgActivity> activities;
+    final Timestamp snapshot;
+
+    /**
+     * Activities list, only those after the snapshot.
+     *
+     * @checkstyle VisibilityModifierCheck (3 lines)
+     */
+    final List<Activity> activities;
 
     /**
      * Main constructor.
      *
      * @param id Account Id.
-     * @param balance Starting balance.
-     * @param activities Activities list.
+     * @param balance Starting balance, or the latest snapshot balance, in minor units.
+     * @param snapshot Time covered by the balance snapshot. Can be null.
+     * @param activities Activities list, only those after the snapshot.
      * @since 1.0
+     * @checkstyle ParameterNumberCheck (3 lines)
      */
-    public PgAccount(final String id, final Double balance, final List<PgActivity> activities) {
+    public PgAccount(
+        final UUID id,
+        final long balance,
+        final Timestamp snapshot,
+        final List<Activity> activities
+    ) {
         this.id = id;
         this.balance = balance;
+        this.snapshot = snapshot;
         this.activities = activities;
     }
 
@@ -61,14 +81,30 @@ public final class PgAccount {
      * @return Account domain model.
      */
     public Account toDomain() {
-        final List<Activity> list =
-            this.activities
-                .stream()
-                .filter(PgActivity::selfValidate)
-                .map(PgActivity::toDomain)
-                .collect(Collectors.toList());
+        return this.toDomain(Stream::empty);
+    }
+
+    /**
+     * Convert to domain account, with a lazy source of the activities before the snapshot.
+     *
+     * @param older Activities before the snapshot.
+     * @return Account domain model.
+     */
+    public Account toDomain(final Supplier<Stream<Activity>> older) {
         final AccountId account = AccountId.with(this.id);
-        final ActivityWindow window = ActivityWindow.with(LocalDateTime.now(), list);
-        return Account.with(account, Money.with(this.balance), window);
+        final LocalDateTime now = LocalDateTime.now();
+        final LocalDateTime start =
+            Optional
+                .ofNullable(this.snapshot)
+                .map(Timestamp::toLocalDateTime)
+                .orElseGet(
+                    () ->
+                        this.activities.stream()
+                            .map(activity -> activity.timestamp)
+                            .min(Comparator.naturalOrder())
+                            .orElse(now)
+                );
+        final ActivityWindow window = ActivityWindow.with(start, now, this.activities, older);
+        return Account.with(account, Money.inMinorUnits(this.balance), window);
     }
 }
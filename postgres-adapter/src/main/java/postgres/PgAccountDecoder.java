@@ -0,0 +1,79 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package postgres;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.UUID;
+
+/**
+ * Decoder of account rows, merging in the rows of their activities.
+ *
+ * <p>Accounts and activities come from two result sets ordered the same way, by account Id
+ * and by owner, so the activities of an account are the run of activity rows right at the
+ * cursor when the account is decoded. Both are read in a single pass, straight into domain
+ * activities, without repeating the account columns on every activity row.
+ *
+ * @since 1.0
+ */
+final class PgAccountDecoder {
+
+    /**
+     * Activities, with the account they belong to in the owner column.
+     */
+    private final ResultSet activities;
+
+    /**
+     * Whether the activities cursor is on a row not decoded yet.
+     */
+    private boolean pending;
+
+    /**
+     * Main constructor.
+     *
+     * @param activities Activities ordered by owner, then by time.
+     * @throws SQLException If reading the activities fails.
+     */
+    PgAccountDecoder(final ResultSet activities) throws SQLException {
+        this.activities = activities;
+        this.pending = activities.next();
+    }
+
+    /**
+     * Decode the account at the current row of a result set, with its activities.
+     *
+     * @param account Result set, on an account row.
+     * @return Account.
+     * @throws SQLException If reading the rows fails.
+     */
+    PgAccount decode(final ResultSet account) throws SQLException {
+        return
+            this.fill(
+                new PgAccount(
+                    account.getObject("account_id", UUID.class),
+                    account.getLong("start_balance"),
+                    account.getTimestamp("covered_until"),
+                    new ArrayList<>(0)
+                )
+            );
+    }
+
+    /**
+     * Add its activities to an account read before, in the same order as the activities.
+     *
+     * @param account Account.
+     * @return The same account.
+     * @throws SQLException If reading the activities fails.
+     */
+    PgAccount fill(final PgAccount account) throws SQLException {
+        while (this.pending
+            && account.id.equals(this.activities.getObject("owner", UUID.class))) {
+            account.activities.add(PgActivities.decode(this.activities));
+            this.pending = this.activities.next();
+        }
+        return account;
+    }
+}
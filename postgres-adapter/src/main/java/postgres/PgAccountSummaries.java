@@ -0,0 +1,263 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package postgres;
+
+import domain.value.AccountId;
+import domain.value.Activity;
+import domain.value.Money;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.stream.Stream;
+import port.out.AccountSummary;
+
+/**
+ * Account summaries repository.
+ *
+ * <p>The summary of each account is kept in its own table by the statements storing
+ * accounts and activities, so that reading it costs one row whatever the length of the
+ * account history. The table can be rebuilt from the activities if it ever drifts from them.
+ *
+ * @since 1.0
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class PgAccountSummaries {
+
+    /**
+     * Table name.
+     */
+    static final String TABLE_NAME = "demo.account_summary";
+
+    /**
+     * Summary of every account query.
+     */
+    private static final String EVERY =
+        String.join(
+            " ",
+            "SELECT account_id, balance, activity_count,",
+            "latest_source AS source_account, latest_target AS target_account,",
+            "latest_time_stamp AS time_stamp, latest_money AS money",
+            "FROM",
+            PgAccountSummaries.TABLE_NAME,
+            "ORDER BY account_id"
+        );
+
+    /**
+     * Money moved in and out of the account of an accounts row and number of its activities
+     * query, each leg of its activities being read from its own index.
+     */
+    private static final String MOVES =
+        String.join(
+            " ",
+            "SELECT",
+            "SUM(CASE WHEN target_account = owner THEN money ELSE 0 END)",
+            "- SUM(CASE WHEN source_account = owner THEN money ELSE 0 END)",
+            "AS moved,",
+            "COUNT(*) AS activity_count",
+            "FROM",
+            String.format("(%s) AS owned", PgActivities.BY_OWNER),
+            "WHERE owner = accounts.account_id"
+        );
+
+    /**
+     * Latest activity of the account of an accounts row query, taking the latest activity it
+     * is the source of and the latest one it is the target of from their own indexes.
+     */
+    private static final String LATEST =
+        String.join(
+            " ",
+            "(SELECT source_account, target_account, time_stamp, money FROM",
+            PgActivities.TABLE_NAME,
+            "WHERE source_account = accounts.account_id",
+            "ORDER BY time_stamp DESC LIMIT 1)",
+            "UNION ALL",
+            "(SELECT source_account, target_account, time_stamp, money FROM",
+            PgActivities.TABLE_NAME,
+            "WHERE target_account = accounts.account_id",
+            "AND source_account IS DISTINCT FROM target_account",
+            "ORDER BY time_stamp DESC LIMIT 1)",
+            "ORDER BY time_stamp DESC LIMIT 1"
+        );
+
+    /**
+     * Rebuild the summary of an account from its start balance and activities query.
+     */
+    private static final String RECOMPUTE =
+        String.join(
+            " ",
+            "INSERT INTO",
+            PgAccountSummaries.TABLE_NAME,
+            "(account_id, balance, activity_count,",
+            "latest_source, latest_target, latest_time_stamp, latest_money)",
+            "SELECT account_id, start_balance + COALESCE(moved, 0),",
+            "COALESCE(activity_count, 0),",
+            "source_account, target_account, time_stamp, money",
+            "FROM",
+            PgAccounts.TABLE_NAME,
+            "AS accounts",
+            "CROSS JOIN LATERAL",
+            String.format("(%s) AS moves", PgAccountSummaries.MOVES),
+            "LEFT OUTER JOIN LATERAL",
+            String.format("(%s) AS latest", PgAccountSummaries.LATEST),
+            "ON TRUE",
+            "WHERE account_id = ?",
+            "ON CONFLICT (account_id) DO UPDATE SET",
+            "balance = EXCLUDED.balance,",
+            "activity_count = EXCLUDED.activity_count,",
+            "latest_source = EXCLUDED.latest_source,",
+            "latest_target = EXCLUDED.latest_target,",
+            "latest_time_stamp = EXCLUDED.latest_time_stamp,",
+            "latest_money = EXCLUDED.latest_money"
+        );
+
+    /**
+     * Lock the summary of an account against the statements storing activities query.
+     */
+    private static final String LOCK =
+        String.format(
+            "SELECT account_id FROM %s WHERE account_id = ? FOR UPDATE",
+            PgAccountSummaries.TABLE_NAME
+        );
+
+    /**
+     * Lock the summaries of accounts against the statements storing activities query, taking
+     * an array of Ids. The summaries are locked in the order of their accounts, so that
+     * statements locking several of them cannot deadlock.
+     */
+    private static final String LOCK_ALL =
+        String.format(
+            "SELECT account_id FROM %s WHERE account_id = ANY(?) ORDER BY account_id FOR UPDATE",
+            PgAccountSummaries.TABLE_NAME
+        );
+
+    /**
+     * JDBC connections.
+     */
+    private final PgConnections connections;
+
+    /**
+     * Main constructor.
+     *
+     * @param connections JDBC connections, one is borrowed for each operation.
+     * @since 1.0
+     */
+    public PgAccountSummaries(final PgConnections connections) {
+        this.connections = connections;
+    }
+
+    /**
+     * Summaries of all accounts, read through a server-side cursor as the stream is consumed.
+     *
+     * @return Stream of account summaries, holding a connection until it is closed.
+     * @throws IllegalStateException If retrieving the summaries fails.
+     * @since 1.0
+     */
+    Stream<AccountSummary> all() throws IllegalStateException {
+        try {
+            return
+                this.connections.stream(
+                    connection -> {
+                        connection.setAutoCommit(false);
+                        final Statement stat = PgRows.cursor(connection);
+                        try {
+                            return
+                                PgRows.stream(
+                                    stat.executeQuery(PgAccountSummaries.EVERY),
+                                    PgAccountSummaries::decode
+                                )
+                                    .onClose(PgRows.closing(stat));
+                        } catch (final SQLException exception) {
+                            stat.close();
+                            throw exception;
+                        }
+                    }
+                );
+        } catch (final SQLException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    /**
+     * Rebuild the summary of an account from its activities.
+     *
+     * <p>The summary is locked against writes until the transaction ends, so that no
+     * activity stored while it is rebuilt is missed or counted twice. It should thus run in
+     * a transaction, and only holds back the activities of that account.
+     *
+     * @param id Account Id.
+     * @return Number of summaries written.
+     * @throws IllegalStateException If rebuilding the summary fails.
+     * @since 1.0
+     */
+    int rebuild(final AccountId id) throws IllegalStateException {
+        try {
+            return
+                this.connections.borrow(
+                    connection -> {
+                        try (PreparedStatement lock =
+                            connection.prepareStatement(PgAccountSummaries.LOCK)) {
+                            lock.setObject(1, id.uuid());
+                            lock.execute();
+                        }
+                        try (PreparedStatement stat =
+                            connection.prepareStatement(PgAccountSummaries.RECOMPUTE)) {
+                            stat.setObject(1, id.uuid());
+                            return stat.executeUpdate();
+                        }
+                    }
+                );
+        } catch (final SQLException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    /**
+     * Lock the summaries of accounts until the transaction ends.
+     *
+     * <p>Activities of an account are only stored, and its snapshot only rolled forward,
+     * once its summary is locked by a statement of its own, so that the statements that
+     * follow it in the transaction see everything committed by those that held it before.
+     *
+     * @param connection Connection, in a transaction.
+     * @param ids Account Ids.
+     * @throws SQLException If locking the summaries fails.
+     */
+    static void lockAll(final Connection connection, final UUID... ids) throws SQLException {
+        try (PreparedStatement stat =
+            PgRows.prepared(
+                connection,
+                PgAccountSummaries.LOCK_ALL,
+                connection.createArrayOf("uuid", ids)
+            )) {
+            stat.execute();
+        }
+    }
+
+    /**
+     * Decode the account summary at the current row of a result set.
+     *
+     * @param result Result set, on a summary row.
+     * @return Account summary.
+     * @throws SQLException If reading the row fails.
+     */
+    private static AccountSummary decode(final ResultSet result) throws SQLException {
+        final Activity latest;
+        if (result.getTimestamp("time_stamp") == null) {
+            latest = null;
+        } else {
+            latest = PgActivities.decode(result);
+        }
+        return
+            AccountSummary.with(
+                AccountId.with(result.getObject("account_id", UUID.class)),
+                Money.inMinorUnits(result.getLong("balance")),
+                result.getLong("activity_count"),
+                latest
+            );
+    }
+}
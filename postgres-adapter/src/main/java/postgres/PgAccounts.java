@@ -4,26 +4,37 @@
  */
 package postgres;
 
-import common.PostConditions;
 import domain.entity.Account;
 import domain.value.AccountId;
+import domain.value.Horizon;
+import java.sql.Array;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.function.Function;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import port.out.AccountsPage;
 
 /**
  * Accounts repository.
  *
  * @since 1.0
  */
+@SuppressWarnings({"PMD.AvoidDuplicateLiterals", "PMD.TooManyMethods"})
 public final class PgAccounts {
 
     /**
@@ -34,51 +45,166 @@ public final class PgAccounts {
     static final String TABLE_NAME = "demo.accounts";
 
     /**
-     * Select all query.
+     * Select all query, starting from the latest balance snapshot of each account.
      */
     private static final String ALL =
         String.join(
             " ",
             "SELECT",
-            "account_id, start_balance, source_account, target_account, time_stamp, money",
+            "account_id, COALESCE(balance, start_balance) AS start_balance, covered_until",
             "FROM",
             PgAccounts.TABLE_NAME,
             "LEFT OUTER JOIN",
-            PgActivities.TABLE_NAME,
-            "ON account_id = source_account OR account_id = target_account"
+            PgSnapshots.TABLE_NAME,
+            "USING (account_id)",
+            "ORDER BY account_id"
         );
 
     /**
-     * Select by Id query.
+     * Activities of all accounts after their latest balance snapshot query, in the order of
+     * the select all query.
+     */
+    private static final String ALL_ACTIVITIES =
+        String.join(
+            " ",
+            "SELECT owner, source_account, target_account, time_stamp, money",
+            "FROM",
+            String.format("(%s) AS owned", PgActivities.BY_OWNER),
+            "LEFT OUTER JOIN",
+            PgSnapshots.TABLE_NAME,
+            "ON account_id = owner",
+            "WHERE covered_until IS NULL OR time_stamp > covered_until",
+            "ORDER BY owner, time_stamp"
+        );
+
+    /**
+     * First page of accounts query, taking the page size.
+     */
+    private static final String FIRST_PAGE = PgAccounts.page("");
+
+    /**
+     * Page of accounts after an account Id query, taking the Id and the page size.
+     */
+    private static final String NEXT_PAGE = PgAccounts.page("WHERE account_id > ?");
+
+    /**
+     * Ids of the first page of accounts query, taking the page size.
+     */
+    private static final String FIRST_IDS =
+        String.format(
+            "SELECT account_id FROM %s ORDER BY account_id LIMIT ?",
+            PgAccounts.TABLE_NAME
+        );
+
+    /**
+     * Ids of a page of accounts after an account Id query, taking the Id and the page size.
+     */
+    private static final String NEXT_IDS =
+        String.format(
+            "SELECT account_id FROM %s WHERE account_id > ? ORDER BY account_id LIMIT ?",
+            PgAccounts.TABLE_NAME
+        );
+
+    /**
+     * Activities after the latest balance snapshot of the accounts within a range of Ids
+     * query, in the order of the page queries.
+     */
+    private static final String PAGE_ACTIVITIES = PgAccounts.activities("owner BETWEEN ? AND ?");
+
+    /**
+     * Select by Ids query, taking an array of Ids, starting from the latest balance snapshot
+     * of each account.
+     */
+    private static final String BY_IDS =
+        String.join(
+            " ",
+            "SELECT",
+            "account_id, COALESCE(balance, start_balance) AS start_balance, covered_until",
+            "FROM",
+            PgAccounts.TABLE_NAME,
+            "LEFT OUTER JOIN",
+            PgSnapshots.TABLE_NAME,
+            "USING (account_id)",
+            "WHERE account_id = ANY(?)",
+            "ORDER BY account_id"
+        );
+
+    /**
+     * Activities after the latest balance snapshot of the accounts of an array of Ids query,
+     * in the order of the select by Ids query.
+     */
+    private static final String IDS_ACTIVITIES = PgAccounts.activities("owner = ANY(?)");
+
+    /**
+     * Select by Id query, starting from the latest balance snapshot of the account.
      */
     private static final String BY_ID =
-        String.format("%s WHERE account_id = ?", PgAccounts.ALL);
+        String.join(
+            " ",
+            "SELECT",
+            "account_id, COALESCE(balance, start_balance) AS start_balance, covered_until",
+            "FROM",
+            PgAccounts.TABLE_NAME,
+            "LEFT OUTER JOIN",
+            PgSnapshots.TABLE_NAME,
+            "USING (account_id)",
+            "WHERE account_id = ?"
+        );
+
+    /**
+     * Select by Id query, folding the activities up to a datetime into the starting balance.
+     */
+    private static final String BY_ID_SINCE =
+        String.join(
+            " ",
+            "SELECT account_id,",
+            "COALESCE(balance, start_balance)",
+            "+ SUM(CASE WHEN target_account = account_id THEN money ELSE 0 END)",
+            "- SUM(CASE WHEN source_account = account_id THEN money ELSE 0 END)",
+            "AS start_balance,",
+            "GREATEST(covered_until, CAST(? AS TIMESTAMP)) AS covered_until",
+            "FROM",
+            PgAccounts.TABLE_NAME,
+            "LEFT OUTER JOIN",
+            PgSnapshots.TABLE_NAME,
+            "USING (account_id)",
+            "LEFT OUTER JOIN",
+            String.format("(%s) AS legs", PgActivities.ofAccount("AND time_stamp <= ?")),
+            "ON covered_until IS NULL OR time_stamp > covered_until",
+            "WHERE account_id = ?",
+            "GROUP BY account_id, balance, start_balance, covered_until"
+        );
 
     /**
-     * Insertion query.
+     * Insertion query, opening the summary of the account in the same statement.
      */
     private static final String INSERT =
         String.join(
             " ",
-            "INSERT INTO",
+            "WITH account AS (INSERT INTO",
             PgAccounts.TABLE_NAME,
             "(account_id, start_balance)",
-            "VALUES (?, ?)"
+            "VALUES (?, ?)",
+            "RETURNING account_id, start_balance)",
+            "INSERT INTO",
+            PgAccountSummaries.TABLE_NAME,
+            "(account_id, balance)",
+            "SELECT account_id, start_balance FROM account"
         );
 
     /**
-     * Connection.
+     * JDBC connections.
      */
-    private final Connection connection;
+    private final PgConnections connections;
 
     /**
      * Main constructor.
      *
-     * @param connection JDBC connection.
+     * @param connections JDBC connections, one is borrowed for each operation.
      * @since 1.0
      */
-    public PgAccounts(final Connection connection) {
-        this.connection = connection;
+    public PgAccounts(final PgConnections connections) {
+        this.connections = connections;
     }
 
     /**
@@ -89,17 +215,25 @@ public final class PgAccounts {
      * @since 1.0
      */
     void save(final Account account) throws IllegalStateException {
-        try (PreparedStatement stat = this.connection.prepareStatement(PgAccounts.INSERT)) {
-            stat.setString(1, account.accountId().toString());
-            stat.setDouble(2, account.balance().value());
-            stat.execute();
+        try {
+            this.connections.borrow(
+                connection -> {
+                    try (PreparedStatement stat = connection.prepareStatement(PgAccounts.INSERT)) {
+                        stat.setObject(1, account.accountId().uuid());
+                        stat.setLong(2, account.balance().minorUnits());
+                        return stat.execute();
+                    }
+                }
+            );
         } catch (final SQLException exception) {
             throw new IllegalStateException(exception);
         }
     }
 
     /**
-     * Find an account by Id.
+     * Find an account by Id, from its balance snapshot and the activities after it, both read
+     * on the same snapshot of the database. The activities before the snapshot are only
+     * fetched if the account history goes back past it.
      *
      * @param id Account id.
      * @return Account
@@ -107,116 +241,536 @@ public final class PgAccounts {
      * @since 1.0
      */
     Account findById(final AccountId id) throws IllegalArgumentException {
-        try (PreparedStatement stat = this.connection.prepareStatement(PgAccounts.BY_ID)) {
-            stat.setString(1, id.toString());
-            try (ResultSet result = stat.executeQuery()) {
-                final List<PgAccount> accounts =
-                    PgAccounts.listFromStream(
-                        PgAccounts.streamFromResultSet(result)
-                    );
-                PgAccounts.checkAccountsList(
-                    accounts,
-                    String.format("Multiple accounts found with id %s", id.toString())
+        final String error = String.format("Account with an id %s not found", id.toString());
+        final PgAccount account;
+        try {
+            account =
+                this.connections.borrow(
+                    connection -> PgRows.consistent(
+                        connection,
+                        reads -> {
+                            try (PreparedStatement stat =
+                                PgRows.prepared(reads, PgAccounts.BY_ID, id.uuid());
+                                ResultSet result = stat.executeQuery()) {
+                                return PgAccounts.later(reads, PgAccounts.account(result, error));
+                            }
+                        }
+                    )
                 );
-                return accounts.get(0).toDomain();
-            }
         } catch (final SQLException exception) {
-            throw new IllegalArgumentException(
-                String.format("Account with an id %s not found", id.toString()), exception
-            );
+            throw new IllegalArgumentException(error, exception);
+        }
+        final PgActivities activities = new PgActivities(this.connections);
+        return
+            account.toDomain(() -> activities.until(id, account.snapshot).stream());
+    }
+
+    /**
+     * Find an account by Id, loading only the activities within a horizon.
+     *
+     * @param id Account id.
+     * @param horizon How much of the account history to load.
+     * @return Account
+     * @throws IllegalArgumentException If account id is not found.
+     * @since 1.0
+     */
+    Account findById(final AccountId id, final Horizon horizon) throws IllegalArgumentException {
+        final Optional<Timestamp> cutoff = this.cutoff(id, horizon);
+        final Account account;
+        if (cutoff.isPresent()) {
+            account = this.findById(id, cutoff.get());
+        } else {
+            account = this.findById(id);
         }
+        return account;
     }
 
     /**
-     * Retrieve all accounts.
+     * Find accounts by Ids, reading them and then all their activities with one query each,
+     * on the same snapshot of the database.
      *
-     * @return Stream of accounts.
+     * @param ids Account Ids.
+     * @return Accounts by Id, in the order of the Ids.
+     * @throws IllegalArgumentException If any account is not found.
      * @throws IllegalStateException If accounts retrieval fails.
      * @since 1.0
      */
-    Stream<Account> allAccounts() throws IllegalStateException {
-        try (Statement stat = this.connection.createStatement()) {
-            try (ResultSet result =  stat.executeQuery(PgAccounts.ALL)) {
-                return
-                    PgAccounts
-                        .listFromStream(PgAccounts.streamFromResultSet(result))
-                        .stream()
-                        .map(PgAccount::toDomain);
+    Map<AccountId, Account> findByIds(
+        final Collection<AccountId> ids
+    ) throws IllegalArgumentException, IllegalStateException {
+        final Map<AccountId, Account> found = new HashMap<>();
+        if (!ids.isEmpty()) {
+            final UUID[] uuids = ids.stream().map(AccountId::uuid).distinct().toArray(UUID[]::new);
+            try {
+                this.connections.borrow(
+                    connection -> PgRows.consistent(
+                        connection,
+                        reads -> {
+                            final Array array = reads.createArrayOf("uuid", uuids);
+                            final List<PgAccount> accounts = new ArrayList<>(uuids.length);
+                            try (PreparedStatement stat =
+                                PgRows.prepared(reads, PgAccounts.BY_IDS, array);
+                                ResultSet result = stat.executeQuery()) {
+                                while (result.next()) {
+                                    accounts.add(PgAccounts.account(result));
+                                }
+                            }
+                            try (PreparedStatement stat =
+                                PgRows.prepared(reads, PgAccounts.IDS_ACTIVITIES, array)) {
+                                PgAccounts.fill(stat, accounts);
+                            }
+                            for (final PgAccount account : accounts) {
+                                found.put(AccountId.with(account.id), account.toDomain());
+                            }
+                            return found;
+                        }
+                    )
+                );
+            } catch (final SQLException exception) {
+                throw new IllegalStateException(exception);
             }
+        }
+        return PgAccounts.ordered(ids, found);
+    }
+
+    /**
+     * Retrieve all accounts, reading them through server-side cursors as the stream is
+     * consumed, on the same snapshot of the database.
+     *
+     * @return Stream of accounts, holding a connection until it is closed.
+     * @throws IllegalStateException If accounts retrieval fails.
+     * @since 1.0
+     */
+    Stream<Account> allAccounts() throws IllegalStateException {
+        try {
+            return
+                this.connections.stream(
+                    connection -> {
+                        PgRows.begin(connection);
+                        final Statement activities = PgRows.cursor(connection);
+                        try {
+                            return
+                                PgAccounts.decoded(
+                                    connection,
+                                    new PgAccountDecoder(
+                                        activities.executeQuery(PgAccounts.ALL_ACTIVITIES)
+                                    )
+                                )
+                                    .onClose(PgRows.closing(activities));
+                        } catch (final SQLException exception) {
+                            activities.close();
+                            throw exception;
+                        }
+                    }
+                )
+                    .map(PgAccount::toDomain);
         } catch (final SQLException exception) {
             throw new IllegalStateException(exception);
         }
     }
 
     /**
-     * Check if account list contains exactly only one element.
+     * Retrieve a page of accounts ordered by Id.
+     *
+     * <p>The accounts are found through the primary key index from the cursor on, so every
+     * page costs the same however deep it is. One more account than the page size is read to
+     * tell whether there is a next page, and only the accounts of the page are loaded, on the
+     * same snapshot of the database as the page.
      *
-     * @param accounts Accounts list.
-     * @param error Error message.
-     * @throws IllegalArgumentException If the accounts list does not contain exactly one element.
+     * @param after Id of the last account of the previous page, null for the first page.
+     * @param size Page size, positive.
+     * @return Page.
+     * @throws IllegalArgumentException If the page size is not positive.
+     * @throws IllegalStateException If accounts retrieval fails.
+     * @since 1.0
      */
-    private static void checkAccountsList(
-        final List<PgAccount> accounts,
-        final String error
+    AccountsPage page(
+        final AccountId after,
+        final int size
+    ) throws IllegalArgumentException, IllegalStateException {
+        AccountsPage.require(size);
+        try {
+            return
+                this.connections.borrow(
+                    connection -> PgRows.consistent(
+                        connection,
+                        reads -> {
+                            final List<PgAccount> accounts =
+                                PgAccounts.accounts(reads, after, size + 1);
+                            final List<PgAccount> page =
+                                accounts.subList(0, Math.min(size, accounts.size()));
+                            if (!page.isEmpty()) {
+                                PgAccounts.fill(reads, page);
+                            }
+                            return
+                                AccountsPage.with(
+                                    page.stream()
+                                        .map(PgAccount::toDomain)
+                                        .collect(Collectors.toList()),
+                                    accounts.size() > size
+                                );
+                        }
+                    )
+                );
+        } catch (final SQLException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    /**
+     * Ids of a page of accounts in the order of their Ids, so that jobs going through every
+     * account can work on one page at a time.
+     *
+     * @param after Id of the last account of the previous page, null for the first page.
+     * @param size Maximum number of Ids.
+     * @return Account Ids, fewer than the size on the last page.
+     * @throws IllegalStateException If retrieving the Ids fails.
+     * @since 1.0
+     */
+    List<AccountId> ids(final AccountId after, final int size) throws IllegalStateException {
+        final String sql;
+        final Object[] parameters;
+        if (after == null) {
+            sql = PgAccounts.FIRST_IDS;
+            parameters = new Object[] {size};
+        } else {
+            sql = PgAccounts.NEXT_IDS;
+            parameters = new Object[] {after.uuid(), size};
+        }
+        try {
+            return
+                this.connections.borrow(
+                    connection -> {
+                        try (PreparedStatement stat =
+                            PgRows.prepared(connection, sql, parameters);
+                            ResultSet result = stat.executeQuery()) {
+                            final List<AccountId> ids = new ArrayList<>(size);
+                            while (result.next()) {
+                                ids.add(AccountId.with(result.getObject(1, UUID.class)));
+                            }
+                            return ids;
+                        }
+                    }
+                );
+        } catch (final SQLException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    /**
+     * Run an operation on every page of account Ids, in order, each page in a transaction of
+     * its own, so that no connection is held from one page to the next.
+     *
+     * @param config Postgres configuration.
+     * @param size Number of Ids per page.
+     * @param operation Operation, taking the connections of the transaction and the Ids.
+     * @throws IllegalStateException If retrieving the Ids or running the operation fails.
+     */
+    static void inPages(
+        final PgConfig config,
+        final int size,
+        final BiConsumer<PgConnections, List<AccountId>> operation
+    ) throws IllegalStateException {
+        final PgAccounts accounts = new PgAccounts(config.connections);
+        List<AccountId> page = accounts.ids(null, size);
+        while (!page.isEmpty()) {
+            final List<AccountId> ids = page;
+            config.inTransaction(transaction -> operation.accept(transaction, ids));
+            page = accounts.ids(ids.get(ids.size() - 1), size);
+        }
+    }
+
+    /**
+     * Find an account by Id, folding the activities up to a datetime into its balance, and
+     * reading the activities after it on the same snapshot of the database.
+     *
+     * @param id Account id.
+     * @param cutoff Datetime, inclusive.
+     * @return Account
+     * @throws IllegalArgumentException If account id is not found.
+     * @checkstyle MagicNumberCheck (35 lines)
+     */
+    private Account findById(
+        final AccountId id,
+        final Timestamp cutoff
     ) throws IllegalArgumentException {
-        PostConditions.must(
-            accounts.size(),
-            size -> size == 1,
-            () -> new IllegalArgumentException(error)
+        final String error = String.format("Account with an id %s not found", id.toString());
+        final PgAccount account;
+        try {
+            account =
+                this.connections.borrow(
+                    connection -> PgRows.consistent(
+                        connection,
+                        reads -> {
+                            try (PreparedStatement stat =
+                                PgRows.prepared(
+                                    reads,
+                                    PgAccounts.BY_ID_SINCE,
+                                    cutoff,
+                                    id.uuid(),
+                                    cutoff,
+                                    id.uuid(),
+                                    cutoff,
+                                    id.uuid()
+                                );
+                                ResultSet result = stat.executeQuery()) {
+                                return PgAccounts.later(reads, PgAccounts.account(result, error));
+                            }
+                        }
+                    )
+                );
+        } catch (final SQLException exception) {
+            throw new IllegalArgumentException(error, exception);
+        }
+        final PgActivities activities = new PgActivities(this.connections);
+        return
+            account.toDomain(() -> activities.until(id, account.snapshot).stream());
+    }
+
+    /**
+     * Datetime up to which the activities of an account are outside a horizon.
+     *
+     * @param id Account id.
+     * @param horizon Horizon.
+     * @return Datetime, empty if the full history is within the horizon.
+     */
+    private Optional<Timestamp> cutoff(final AccountId id, final Horizon horizon) {
+        final Optional<Timestamp> cutoff;
+        final Optional<LocalDateTime> time = horizon.cutoff(LocalDateTime.now());
+        if (time.isPresent()) {
+            cutoff = time.map(value -> Timestamp.from(value.toInstant(ZoneOffset.UTC)));
+        } else if (horizon.activities().isPresent()) {
+            cutoff =
+                new PgActivities(this.connections).latest(id, horizon.activities().getAsInt());
+        } else {
+            cutoff = Optional.empty();
+        }
+        return cutoff;
+    }
+
+    /**
+     * Add the activities of an account after its balance snapshot to it.
+     *
+     * @param connection Connection, reading the same snapshot of the database as the one the
+     *  account was read from.
+     * @param account Account.
+     * @return The account.
+     * @throws IllegalStateException If retrieving activities fails.
+     */
+    private static PgAccount later(
+        final Connection connection,
+        final PgAccount account
+    ) throws IllegalStateException {
+        account.activities.addAll(
+            new PgActivities(new PgTransaction(connection))
+                .after(AccountId.with(account.id), account.snapshot)
         );
+        return account;
     }
 
     /**
-     * Convert JDBC result set to a stream of Pg accounts.
+     * Accounts after an account Id, without their activities.
      *
-     * @param result Result set.
-     * @return Stream of Pg accounts.
-     * @throws SQLException If result set access fails.
+     * @param connection Connection.
+     * @param after Account Id, null to start from the first account.
+     * @param limit Maximum number of accounts.
+     * @return Accounts ordered by Id.
+     * @throws SQLException If reading the accounts fails.
      */
-    private static Stream<PgAccount> streamFromResultSet(
-        final ResultSet result
+    private static List<PgAccount> accounts(
+        final Connection connection,
+        final AccountId after,
+        final int limit
     ) throws SQLException {
-        final Stream.Builder<PgAccount> builder = Stream.builder();
-        while (result.next()) {
-            builder.accept(
-                new PgAccount(
-                    result.getString("account_id"),
-                    result.getDouble("start_balance"),
-                    Collections.singletonList(
-                        new PgActivity(
-                            result.getString("source_account"),
-                            result.getString("target_account"),
-                            result.getTimestamp("time_stamp"),
-                            result.getDouble("money")
-                        )
-                    )
-                )
+        final String sql;
+        if (after == null) {
+            sql = PgAccounts.FIRST_PAGE;
+        } else {
+            sql = PgAccounts.NEXT_PAGE;
+        }
+        try (PreparedStatement stat = connection.prepareStatement(sql)) {
+            if (after == null) {
+                stat.setInt(1, limit);
+            } else {
+                stat.setObject(1, after.uuid());
+                stat.setInt(2, limit);
+            }
+            try (ResultSet result = stat.executeQuery()) {
+                final List<PgAccount> accounts = new ArrayList<>(limit);
+                while (result.next()) {
+                    accounts.add(PgAccounts.account(result));
+                }
+                return accounts;
+            }
+        }
+    }
+
+    /**
+     * Accounts found by Ids, in the order of the Ids.
+     *
+     * @param ids Account Ids.
+     * @param found Accounts found, by Id.
+     * @return Accounts by Id, in the order of the Ids.
+     * @throws IllegalArgumentException If any account is not found.
+     */
+    private static Map<AccountId, Account> ordered(
+        final Collection<AccountId> ids,
+        final Map<AccountId, Account> found
+    ) throws IllegalArgumentException {
+        final Map<AccountId, Account> accounts = new LinkedHashMap<>();
+        for (final AccountId id : ids) {
+            final Account account = found.get(id);
+            if (account == null) {
+                throw new IllegalArgumentException(
+                    String.format("Account with an id %s not found", id.toString())
+                );
+            }
+            accounts.put(id, account);
+        }
+        return accounts;
+    }
+
+    /**
+     * Add their activities to accounts, reading those of the whole range of their Ids at once.
+     *
+     * @param connection Connection.
+     * @param accounts Accounts ordered by Id, at least one.
+     * @throws SQLException If reading the activities fails.
+     */
+    private static void fill(
+        final Connection connection,
+        final List<PgAccount> accounts
+    ) throws SQLException {
+        try (PreparedStatement stat = connection.prepareStatement(PgAccounts.PAGE_ACTIVITIES)) {
+            stat.setObject(1, accounts.get(0).id);
+            stat.setObject(2, accounts.get(accounts.size() - 1).id);
+            PgAccounts.fill(stat, accounts);
+        }
+    }
+
+    /**
+     * Add their activities to accounts, from an activities query of their owners.
+     *
+     * @param stat Activities query, ordered by owner then by time, with its parameters set.
+     * @param accounts Accounts ordered by Id.
+     * @throws SQLException If reading the activities fails.
+     */
+    private static void fill(
+        final PreparedStatement stat,
+        final List<PgAccount> accounts
+    ) throws SQLException {
+        try (ResultSet result = stat.executeQuery()) {
+            final PgAccountDecoder decoder = new PgAccountDecoder(result);
+            for (final PgAccount account : accounts) {
+                decoder.fill(account);
+            }
+        }
+    }
+
+    /**
+     * Activities after the latest balance snapshot of some accounts query, ordered by owner
+     * then by time.
+     *
+     * @param condition Condition on the owner.
+     * @return Query taking the parameters of the condition.
+     */
+    private static String activities(final String condition) {
+        return
+            String.join(
+                " ",
+                "SELECT owner, source_account, target_account, time_stamp, money",
+                "FROM",
+                String.format("(%s) AS owned", PgActivities.BY_OWNER),
+                "LEFT OUTER JOIN",
+                PgSnapshots.TABLE_NAME,
+                "ON account_id = owner",
+                "WHERE",
+                condition,
+                "AND (covered_until IS NULL OR time_stamp > covered_until)",
+                "ORDER BY owner, time_stamp"
             );
+    }
+
+    /**
+     * Page of accounts query.
+     *
+     * @param condition Condition on the account Id, can be empty.
+     * @return Query taking the parameters of the condition, then the page size.
+     */
+    private static String page(final String condition) {
+        return
+            String.join(
+                " ",
+                "SELECT",
+                "account_id, COALESCE(balance, start_balance) AS start_balance, covered_until",
+                "FROM",
+                PgAccounts.TABLE_NAME,
+                "LEFT OUTER JOIN",
+                PgSnapshots.TABLE_NAME,
+                "USING (account_id)",
+                condition,
+                "ORDER BY account_id LIMIT ?"
+            );
+    }
+
+    /**
+     * Decode the only account of a result set, without its activities.
+     *
+     * @param result Result set.
+     * @param error Error message if there is no account.
+     * @return Account.
+     * @throws SQLException If reading the result set fails.
+     * @throws IllegalArgumentException If there is no account.
+     */
+    private static PgAccount account(
+        final ResultSet result,
+        final String error
+    ) throws SQLException, IllegalArgumentException {
+        if (!result.next()) {
+            throw new IllegalArgumentException(error);
+        }
+        return PgAccounts.account(result);
+    }
+
+    /**
+     * Stream all the accounts through a server-side cursor, decoding their activities as
+     * they are read.
+     *
+     * @param connection Connection, in a transaction.
+     * @param decoder Decoder reading the activities of all the accounts.
+     * @return Stream of accounts, closing its cursor when it is closed.
+     * @throws SQLException If opening the cursor fails.
+     */
+    @SuppressWarnings("PMD.CloseResource")
+    private static Stream<PgAccount> decoded(
+        final Connection connection,
+        final PgAccountDecoder decoder
+    ) throws SQLException {
+        final Statement accounts = PgRows.cursor(connection);
+        try {
+            return
+                PgRows.stream(accounts.executeQuery(PgAccounts.ALL), decoder::decode)
+                    .onClose(PgRows.closing(accounts));
+        } catch (final SQLException exception) {
+            accounts.close();
+            throw exception;
         }
-        return builder.build();
     }
 
     /**
-     * Collect a stream of single activity accounts into a list of accounts with its activities.
+     * Decode the account at the current row of a result set, without its activities.
      *
-     * @param stream A stream of Pg accounts.
-     * @return A list of Pg accounts.
+     * @param result Result set, on an account row.
+     * @return Account.
+     * @throws SQLException If reading the row fails.
      */
-    private static List<PgAccount> listFromStream(final Stream<PgAccount> stream) {
+    private static PgAccount account(final ResultSet result) throws SQLException {
         return
-            new ArrayList<>(
-                stream
-                    .collect(
-                        Collectors.toMap(
-                            acc -> acc.id,
-                            Function.identity(),
-                            (acc, other) -> {
-                                acc.activities.addAll(other.activities);
-                                return acc;
-                            }
-                        )
-                    )
-                    .values()
+            new PgAccount(
+                result.getObject("account_id", UUID.class),
+                result.getLong("start_balance"),
+                result.getTimestamp("covered_until"),
+                new ArrayList<>(0)
             );
     }
 }
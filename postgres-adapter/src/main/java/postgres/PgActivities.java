@@ -6,19 +6,26 @@ package postgres;
 
 import domain.value.AccountId;
 import domain.value.Activity;
+import domain.value.Money;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
-import java.time.Instant;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
  * Activities repository.
  *
  * @since 1.0
  */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
 public final class PgActivities {
 
     /**
@@ -27,81 +34,402 @@ public final class PgActivities {
     static final String TABLE_NAME = "demo.activities";
 
     /**
-     * Insert query.
+     * Activities with the account they belong to, once for each account they moved money
+     * of, so that they can be joined to accounts by equality instead of by either column.
+     */
+    static final String BY_OWNER = PgActivities.owned(PgActivities.TABLE_NAME);
+
+    /**
+     * Activities of an account after a datetime query, all of them if the datetime is null.
+     */
+    static final String LATER =
+        String.format(
+            "%s ORDER BY time_stamp",
+            PgActivities.ofAccount(
+                "AND time_stamp > COALESCE(CAST(? AS TIMESTAMP), '-infinity')"
+            )
+        );
+
+    /**
+     * Insert query, taking arrays of the columns of the activities, and applying them to the
+     * summaries of their accounts in the same statement.
+     *
+     * <p>The activities are aggregated per account first, so that each summary is updated
+     * once whatever the number of its activities in the batch. A transfer from an account to
+     * itself counts once, moving no money. The summaries are locked in the order of their
+     * accounts before being updated, so that concurrent batches sharing accounts cannot
+     * deadlock on them. Activities committed after the snapshot of their account already
+     * covers their time are added to it, the snapshots being locked in the same order. The
+     * summaries must be locked by an earlier statement, which the snapshots wait for too.
      */
     private static final String INSERT =
         String.join(
             " ",
-            "INSERT INTO",
+            "WITH activity AS (INSERT INTO",
             PgActivities.TABLE_NAME,
-            "(source_account, target_account, time_stamp, money) VALUES (?, ?, ?, ?)"
+            "(source_account, target_account, time_stamp, money)",
+            "SELECT * FROM UNNEST(CAST(? AS UUID[]), CAST(? AS UUID[]),",
+            "CAST(? AS TIMESTAMP[]), CAST(? AS BIGINT[]))",
+            "RETURNING source_account, target_account, time_stamp, money),",
+            String.format("owned AS (%s),", PgActivities.owned("activity")),
+            "moves AS (SELECT DISTINCT ON (owner)",
+            "owner, source_account, target_account, time_stamp, money,",
+            "SUM(CASE WHEN target_account = owner THEN money ELSE 0 END) OVER owners",
+            "- SUM(CASE WHEN source_account = owner THEN money ELSE 0 END) OVER owners",
+            "AS moved,",
+            "COUNT(*) OVER owners AS moved_count",
+            "FROM owned WINDOW owners AS (PARTITION BY owner)",
+            "ORDER BY owner, time_stamp DESC),",
+            "locked AS (SELECT account_id AS locked_id FROM",
+            PgAccountSummaries.TABLE_NAME,
+            "WHERE account_id IN (SELECT owner FROM moves)",
+            "ORDER BY account_id FOR UPDATE),",
+            "late AS (SELECT account_id, covered_until FROM",
+            PgSnapshots.TABLE_NAME,
+            "WHERE account_id IN (SELECT owner FROM owned)",
+            "AND EXISTS (SELECT 1 FROM owned",
+            "WHERE owner = account_id AND time_stamp <= covered_until)",
+            "ORDER BY account_id FOR UPDATE),",
+            "folded AS (UPDATE",
+            PgSnapshots.TABLE_NAME,
+            "SET balance = balance + late_moved",
+            "FROM (SELECT owner AS late_owner,",
+            "SUM(CASE WHEN target_account = owner THEN money ELSE 0 END)",
+            "- SUM(CASE WHEN source_account = owner THEN money ELSE 0 END) AS late_moved",
+            "FROM owned JOIN late ON owner = account_id AND time_stamp <= covered_until",
+            "GROUP BY owner) AS folding",
+            "WHERE account_id = late_owner)",
+            "UPDATE",
+            PgAccountSummaries.TABLE_NAME,
+            "SET balance = balance + moved,",
+            "activity_count = activity_count + moved_count,",
+            PgActivities.latest("latest_source", "source_account"),
+            PgActivities.latest("latest_target", "target_account"),
+            PgActivities.latest("latest_money", "money"),
+            "latest_time_stamp = GREATEST(latest_time_stamp, time_stamp)",
+            "FROM moves JOIN locked ON owner = locked_id",
+            "WHERE account_id = locked_id"
+        );
+
+    /**
+     * Activities of an account up to a datetime query.
+     */
+    private static final String UP_TO =
+        String.format(
+            "%s ORDER BY time_stamp",
+            PgActivities.ofAccount("AND time_stamp <= ?")
         );
 
     /**
-     * JDBC connection.
+     * Timestamp of the n-th latest activity of an account query.
      */
-    private final Connection connection;
+    private static final String NTH_LATEST =
+        String.format(
+            "SELECT time_stamp FROM (%s) AS legs ORDER BY time_stamp DESC OFFSET ? LIMIT 1",
+            PgActivities.ofAccount("")
+        );
+
+    /**
+     * JDBC connections.
+     */
+    private final PgConnections connections;
 
     /**
      * Main constructor.
      *
-     * @param connection JDBC connection.
+     * @param connections JDBC connections, one is borrowed for each operation.
      * @since 1.0
      */
-    public PgActivities(final Connection connection) {
-        this.connection = connection;
+    public PgActivities(final PgConnections connections) {
+        this.connections = connections;
     }
 
     /**
-     * Store activities.
+     * Store activities, all or none of them being stored by a single statement.
+     *
+     * <p>The summaries of their accounts are locked by a statement of its own first, in the
+     * same transaction, so that the insert sees every snapshot rolled forward while it
+     * waited for them. The two statements run in a transaction of their own unless the
+     * connection already is in one.
      *
      * @param activities Activities.
      * @throws IllegalArgumentException If storing activities fails.
      * @since 1.0
      */
     void storeActivity(final Activity... activities) throws IllegalArgumentException {
-        try (PreparedStatement stat = this.connection.prepareStatement(PgActivities.INSERT)) {
-            for (final Activity activity : activities) {
-                PgActivities.addActivityToBatch(stat, activity);
-            }
-            stat.executeBatch();
+        final UUID[] owners =
+            Stream.of(activities)
+                .flatMap(activity -> Stream.of(activity.source, activity.target))
+                .filter(Objects::nonNull)
+                .map(AccountId::uuid)
+                .distinct()
+                .toArray(UUID[]::new);
+        try {
+            this.connections.borrow(
+                connection -> {
+                    final boolean single = connection.getAutoCommit();
+                    connection.setAutoCommit(false);
+                    PgAccountSummaries.lockAll(connection, owners);
+                    try (PreparedStatement stat =
+                        connection.prepareStatement(PgActivities.INSERT)) {
+                        PgActivities.setActivities(connection, stat, activities);
+                        stat.executeUpdate();
+                    }
+                    if (single) {
+                        connection.setAutoCommit(true);
+                    }
+                    return null;
+                }
+            );
         } catch (final SQLException exception) {
             throw new IllegalArgumentException(exception);
         }
     }
 
     /**
-     * Add activity to statement to execute in batch mode.
+     * Activities of an account that happened after a datetime.
+     *
+     * @param account Account Id.
+     * @param time Datetime, exclusive. Null for all the activities.
+     * @return Activities ordered by time.
+     * @throws IllegalStateException If retrieving activities fails.
+     * @since 1.0
+     */
+    List<Activity> after(
+        final AccountId account,
+        final Timestamp time
+    ) throws IllegalStateException {
+        return this.query(PgActivities.LATER, account, time);
+    }
+
+    /**
+     * Activities of an account that happened up to a datetime.
      *
-     * @param stat Prepared statement.
-     * @param activity Activity.
-     * @throws SQLException If adding element to statement fails.
+     * @param account Account Id.
+     * @param time Datetime, inclusive.
+     * @return Activities ordered by time.
+     * @throws IllegalStateException If retrieving activities fails.
      * @since 1.0
-     * @checkstyle MagicNumberCheck (13 lines)
-     * @checkstyle MagicNumberCheck (13 lines)
      */
-    private static void addActivityToBatch(
-        final PreparedStatement stat,
-        final Activity activity
-    ) throws SQLException {
-        final Instant instant = activity.timestamp.toInstant(ZoneOffset.UTC);
-        final String source = PgActivities.stringFromAccountId(activity.source);
-        final String target = PgActivities.stringFromAccountId(activity.target);
-        stat.setString(1, source);
-        stat.setString(2, target);
-        stat.setTimestamp(3, Timestamp.from(instant));
-        stat.setDouble(4, activity.money.value());
-        stat.addBatch();
+    List<Activity> until(
+        final AccountId account,
+        final Timestamp time
+    ) throws IllegalStateException {
+        return this.query(PgActivities.UP_TO, account, time);
     }
 
     /**
-     * Get string from account Id.
+     * Timestamp of an account activity counting back from the latest one.
      *
      * @param account Account Id.
-     * @return String
+     * @param offset Number of activities to skip, zero for the latest activity.
+     * @return Timestamp, empty if the account does not have that many activities.
+     * @throws IllegalStateException If retrieving the timestamp fails.
      * @since 1.0
+     * @checkstyle MagicNumberCheck (25 lines)
+     */
+    Optional<Timestamp> latest(
+        final AccountId account,
+        final int offset
+    ) throws IllegalStateException {
+        try {
+            return
+                this.connections.borrow(
+                    connection -> {
+                        try (PreparedStatement stat =
+                            PgRows.prepared(
+                                connection,
+                                PgActivities.NTH_LATEST,
+                                account.uuid(),
+                                account.uuid(),
+                                offset
+                            );
+                            ResultSet result = stat.executeQuery()) {
+                            final Optional<Timestamp> time;
+                            if (result.next()) {
+                                time = Optional.of(result.getTimestamp(1));
+                            } else {
+                                time = Optional.empty();
+                            }
+                            return time;
+                        }
+                    }
+                );
+        } catch (final SQLException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    /**
+     * Activities of an account query, as the union of the activities it is the source of
+     * and those it is the target of, so that each leg is served by its own index.
+     *
+     * <p>The query takes the account Id, then the parameters of the condition, once per leg.
+     *
+     * @param condition Condition added to both legs, can be empty.
+     * @return Query.
+     */
+    static String ofAccount(final String condition) {
+        return
+            String.join(
+                " ",
+                "SELECT source_account, target_account, time_stamp, money FROM",
+                PgActivities.TABLE_NAME,
+                "WHERE source_account = ?",
+                condition,
+                "UNION ALL",
+                "SELECT source_account, target_account, time_stamp, money FROM",
+                PgActivities.TABLE_NAME,
+                "WHERE target_account = ? AND source_account IS DISTINCT FROM target_account",
+                condition
+            );
+    }
+
+    /**
+     * Decode the activity at the current row of a result set.
+     *
+     * @param result Result set, on an activity row.
+     * @return Activity.
+     * @throws SQLException If reading the row fails.
+     */
+    static Activity decode(final ResultSet result) throws SQLException {
+        final UUID source = result.getObject("source_account", UUID.class);
+        final UUID target = result.getObject("target_account", UUID.class);
+        return
+            Activity.with(
+                Optional.ofNullable(source).map(AccountId::with).orElse(null),
+                Optional.ofNullable(target).map(AccountId::with).orElse(null),
+                result.getTimestamp("time_stamp").toLocalDateTime(),
+                Money.inMinorUnits(result.getLong("money"))
+            );
+    }
+
+    /**
+     * Query the activities of an account relative to a datetime.
+     *
+     * @param sql Query.
+     * @param account Account Id.
+     * @param time Datetime.
+     * @return Activities.
+     * @throws IllegalStateException If retrieving activities fails.
+     * @checkstyle MagicNumberCheck (35 lines)
+     */
+    private List<Activity> query(
+        final String sql,
+        final AccountId account,
+        final Timestamp time
+    ) throws IllegalStateException {
+        try {
+            return
+                this.connections.borrow(
+                    connection -> {
+                        try (PreparedStatement stat =
+                            PgRows.prepared(
+                                connection,
+                                sql,
+                                account.uuid(),
+                                time,
+                                account.uuid(),
+                                time
+                            );
+                            ResultSet result = stat.executeQuery()) {
+                            final List<Activity> activities = new ArrayList<>(0);
+                            while (result.next()) {
+                                activities.add(PgActivities.decode(result));
+                            }
+                            return activities;
+                        }
+                    }
+                );
+        } catch (final SQLException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    /**
+     * Activities with the account they belong to query, once for each account they moved
+     * money of.
+     *
+     * @param table Table or named query of activities.
+     * @return Query.
+     */
+    private static String owned(final String table) {
+        return
+            String.join(
+                " ",
+                "SELECT source_account AS owner, source_account, target_account, time_stamp,",
+                "money FROM",
+                table,
+                "WHERE source_account IS NOT NULL",
+                "UNION ALL",
+                "SELECT target_account, source_account, target_account, time_stamp, money",
+                "FROM",
+                table,
+                "WHERE target_account IS NOT NULL",
+                "AND source_account IS DISTINCT FROM target_account"
+            );
+    }
+
+    /**
+     * Assignment of a latest activity column of the summaries, replaced when the stored
+     * activity is not older than the latest one.
+     *
+     * @param column Summary column.
+     * @param value Stored activity column.
+     * @return Assignment, followed by a comma.
+     */
+    private static String latest(final String column, final String value) {
+        return
+            String.format(
+                String.join(
+                    " ",
+                    "%s = CASE WHEN latest_time_stamp IS NULL OR time_stamp >= latest_time_stamp",
+                    "THEN %s ELSE %s END,"
+                ),
+                column,
+                value,
+                column
+            );
+    }
+
+    /**
+     * Set the columns of activities as the array parameters of the insert query.
+     *
+     * @param connection Connection.
+     * @param stat Insert query.
+     * @param activities Activities.
+     * @throws SQLException If setting the parameters fails.
+     * @checkstyle MagicNumberCheck (25 lines)
+     */
+    private static void setActivities(
+        final Connection connection,
+        final PreparedStatement stat,
+        final Activity... activities
+    ) throws SQLException {
+        final UUID[] sources = new UUID[activities.length];
+        final UUID[] targets = new UUID[activities.length];
+        final Timestamp[] times = new Timestamp[activities.length];
+        final Long[] amounts = new Long[activities.length];
+        for (int idx = 0; idx < activities.length; idx += 1) {
+            final Activity activity = activities[idx];
+            sources[idx] = PgActivities.uuid(activity.source);
+            targets[idx] = PgActivities.uuid(activity.target);
+            times[idx] = Timestamp.from(activity.timestamp.toInstant(ZoneOffset.UTC));
+            amounts[idx] = activity.money.minorUnits();
+        }
+        stat.setArray(1, connection.createArrayOf("uuid", sources));
+        stat.setArray(2, connection.createArrayOf("uuid", targets));
+        stat.setArray(3, connection.createArrayOf("timestamp", times));
+        stat.setArray(4, connection.createArrayOf("int8", amounts));
+    }
+
+    /**
+     * Get the UUID of an account Id.
+     *
+     * @param account Account Id. Can be null.
+     * @return UUID, null if there is no account.
      */
-    private static String stringFromAccountId(final AccountId account) {
-        return Optional.ofNullable(account).map(AccountId::toString).orElse(null);
+    private static UUID uuid(final AccountId account) {
+        return Optional.ofNullable(account).map(AccountId::uuid).orElse(null);
     }
 }
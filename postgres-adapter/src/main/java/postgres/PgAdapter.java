@@ -7,30 +7,100 @@ package postgres;
 import domain.entity.Account;
 import domain.value.AccountId;
 import domain.value.Activity;
+import domain.value.Horizon;
+import domain.value.Money;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
 import java.util.stream.Stream;
+import port.out.AccountSummary;
+import port.out.AccountsPage;
+import port.out.LookupAccountSummaries;
 import port.out.LookupAccounts;
+import port.out.LookupBalances;
 import port.out.StoreAccount;
 import port.out.StoreActivity;
 
 /**
  * Postgres adapter.
  *
+ * <p>Activities are committed in groups when the {@code pg.group-commit.size} system
+ * property is above one, in batches of up to that many activities waiting at most
+ * {@code pg.group-commit.linger} (millis) for each other. Without any linger, the
+ * activities stored while a batch commits make up the next one. Otherwise each activity is
+ * committed on its own.
+ *
  * @since 1.0
  */
-public final class PgAdapter implements LookupAccounts, StoreActivity, StoreAccount {
+@SuppressWarnings("PMD.TooManyMethods")
+public final class PgAdapter
+    implements LookupAccounts, LookupAccountSummaries, LookupBalances, StoreActivity, StoreAccount {
+
+    /**
+     * Time between two balance snapshots.
+     */
+    private static final Duration SNAPSHOT_INTERVAL = Duration.ofMinutes(5);
+
+    /**
+     * How far behind the current time balance snapshots are taken.
+     */
+    private static final Duration SNAPSHOT_LAG = Duration.ofMinutes(1);
+
+    /**
+     * Time between two rebuilds of the account summaries.
+     */
+    private static final Duration REPAIR_INTERVAL = Duration.ofDays(1);
+
+    /**
+     * Maximum number of activities committed together.
+     */
+    private static final int GROUP_SIZE = Integer.getInteger("pg.group-commit.size", 1);
+
+    /**
+     * How long an activity waits for others to be committed with.
+     */
+    private static final Duration GROUP_LINGER =
+        Duration.ofMillis(Long.getLong("pg.group-commit.linger", 0L));
 
     /**
      * Postgres config.
      */
     private final PgConfig config;
 
+    /**
+     * Balance snapshots job.
+     */
+    private final PgSnapshotter snapshotter;
+
+    /**
+     * Account summaries repair job.
+     */
+    private final PgSummaryRepairer repairer;
+
+    /**
+     * Activities store.
+     */
+    private final StoreActivity activities;
+
     /**
      * Main constructor.
      *
      * @param config Postgres configuration.
+     * @param snapshotter Balance snapshots job.
+     * @param repairer Account summaries repair job.
+     * @param activities Activities store.
+     * @checkstyle ParameterNumberCheck (10 lines)
      */
-    private PgAdapter(final PgConfig config) {
+    private PgAdapter(
+        final PgConfig config,
+        final PgSnapshotter snapshotter,
+        final PgSummaryRepairer repairer,
+        final StoreActivity activities
+    ) {
         this.config = config;
+        this.snapshotter = snapshotter;
+        this.repairer = repairer;
+        this.activities = activities;
     }
 
     /**
@@ -45,30 +115,144 @@ public final class PgAdapter implements LookupAccounts, StoreActivity, StoreAcco
             "postgres",
             "postgres"
         );
-        return new PgAdapter(config);
+        final StoreActivity activities;
+        if (PgAdapter.GROUP_SIZE > 1) {
+            activities =
+                PgGroupCommit.start(
+                    batch ->
+                        config.inTransaction(
+                            transaction ->
+                                new PgActivities(transaction).storeActivity(
+                                    batch.toArray(new Activity[0])
+                                )
+                        ),
+                    PgAdapter.GROUP_SIZE,
+                    PgAdapter.GROUP_LINGER
+                );
+        } else {
+            activities = activity -> new PgActivities(config.connections).storeActivity(activity);
+        }
+        return
+            new PgAdapter(
+                config,
+                PgSnapshotter.start(config, PgAdapter.SNAPSHOT_INTERVAL, PgAdapter.SNAPSHOT_LAG),
+                PgSummaryRepairer.start(config, PgAdapter.REPAIR_INTERVAL),
+                activities
+            );
+    }
+
+    /**
+     * Roll the balance snapshots forward now instead of waiting for the next run.
+     *
+     * @since 1.0
+     */
+    public void snapshot() {
+        this.snapshotter.snapshot();
+    }
+
+    /**
+     * Rebuild the account summaries from the activities now instead of waiting for the next
+     * run.
+     *
+     * @since 1.0
+     */
+    public void repairSummaries() {
+        this.repairer.repair();
+    }
+
+    /**
+     * Connection pool metrics.
+     *
+     * @return Metrics.
+     * @since 1.0
+     */
+    public PgPool.Metrics poolMetrics() {
+        return this.config.connections.metrics();
+    }
+
+    /**
+     * Prepared statement caches of the pooled connections.
+     *
+     * @return Statement caches, with their hit and miss counters.
+     * @since 1.0
+     */
+    public PgStatements statements() {
+        return this.config.statements;
     }
 
     @Override
     public Account byId(final AccountId id) throws IllegalArgumentException {
-        return new PgAccounts(this.config.connection).findById(id);
+        return new PgAccounts(this.config.connections).findById(id);
+    }
+
+    @Override
+    public Account byId(
+        final AccountId id,
+        final Horizon horizon
+    ) throws IllegalArgumentException {
+        return new PgAccounts(this.config.connections).findById(id, horizon);
+    }
+
+    @Override
+    public Map<AccountId, Account> byIds(
+        final Collection<AccountId> ids
+    ) throws IllegalArgumentException {
+        return new PgAccounts(this.config.connections).findByIds(ids);
     }
 
     @Override
     public Stream<Account> all() throws IllegalStateException {
-        return new PgAccounts(this.config.connection).allAccounts();
+        return new PgAccounts(this.config.connections).allAccounts();
+    }
+
+    @Override
+    public AccountsPage page(
+        final AccountId after,
+        final int size
+    ) throws IllegalArgumentException, IllegalStateException {
+        return new PgAccounts(this.config.connections).page(after, size);
+    }
+
+    @Override
+    public Stream<AccountSummary> summaries() throws IllegalStateException {
+        return new PgAccountSummaries(this.config.connections).all();
+    }
+
+    @Override
+    public Money balance(final AccountId id) throws IllegalArgumentException {
+        return new PgBalances(this.config.connections).balance(id);
+    }
+
+    @Override
+    public Map<AccountId, Money> balances(
+        final Collection<AccountId> ids
+    ) throws IllegalArgumentException {
+        return new PgBalances(this.config.connections).balances(ids);
     }
 
     @Override
     public void storeActivity(final Activity activity) throws IllegalStateException {
-        new PgActivities(this.config.connection).storeActivity(activity);
+        this.activities.storeActivity(activity);
+    }
+
+    @Override
+    public void storeActivities(
+        final Collection<Activity> batch
+    ) throws IllegalStateException {
+        if (!batch.isEmpty()) {
+            this.config.inTransaction(
+                transaction ->
+                    new PgActivities(transaction).storeActivity(batch.toArray(new Activity[0]))
+            );
+        }
     }
 
     @Override
     public void storeAccount(final Account account) throws IllegalStateException {
         this.config.inTransaction(
-            connection -> {
-                new PgAccounts(connection).save(account);
-                new PgActivities(connection).storeActivity(
+            transaction -> {
+                new PgAccounts(transaction).save(account);
+                new PgActivities(transaction).storeActivity(
                     account.unsavedActivities().toArray(Activity[]::new)
                 );
             }
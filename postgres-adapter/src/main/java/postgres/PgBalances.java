@@ -0,0 +1,148 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package postgres;
+
+import domain.value.AccountId;
+import domain.value.Money;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Balances repository, reading the balance of an account from its summary so that none of
+ * its activities is read.
+ *
+ * @since 1.0
+ */
+public final class PgBalances {
+
+    /**
+     * Account not found error message.
+     */
+    private static final String NOT_FOUND = "Account with an id %s not found";
+
+    /**
+     * Balance of an account query.
+     */
+    private static final String OF_ACCOUNT =
+        String.join(
+            " ",
+            "SELECT balance FROM",
+            PgAccountSummaries.TABLE_NAME,
+            "WHERE account_id = ?"
+        );
+
+    /**
+     * Balances of the accounts of an array of Ids query.
+     */
+    private static final String OF_ACCOUNTS =
+        String.join(
+            " ",
+            "SELECT account_id, balance FROM",
+            PgAccountSummaries.TABLE_NAME,
+            "WHERE account_id = ANY(?)"
+        );
+
+    /**
+     * JDBC connections.
+     */
+    private final PgConnections connections;
+
+    /**
+     * Main constructor.
+     *
+     * @param connections JDBC connections, one is borrowed for each operation.
+     * @since 1.0
+     */
+    public PgBalances(final PgConnections connections) {
+        this.connections = connections;
+    }
+
+    /**
+     * Current balance of an account.
+     *
+     * @param id Account Id.
+     * @return Balance.
+     * @throws IllegalArgumentException If account id is not found.
+     * @since 1.0
+     */
+    Money balance(final AccountId id) throws IllegalArgumentException {
+        final String error = String.format(PgBalances.NOT_FOUND, id.toString());
+        try {
+            return
+                this.connections.borrow(
+                    connection -> {
+                        try (PreparedStatement stat =
+                            PgRows.prepared(connection, PgBalances.OF_ACCOUNT, id.uuid());
+                            ResultSet result = stat.executeQuery()) {
+                            if (!result.next()) {
+                                throw new IllegalArgumentException(error);
+                            }
+                            return Money.inMinorUnits(result.getLong(1));
+                        }
+                    }
+                );
+        } catch (final SQLException exception) {
+            throw new IllegalArgumentException(error, exception);
+        }
+    }
+
+    /**
+     * Current balances of accounts, read with one query.
+     *
+     * @param ids Account Ids.
+     * @return Balances by account Id, in the order of the Ids.
+     * @throws IllegalArgumentException If any account is not found.
+     * @throws IllegalStateException If retrieving the balances fails.
+     * @since 1.0
+     */
+    Map<AccountId, Money> balances(
+        final Collection<AccountId> ids
+    ) throws IllegalArgumentException, IllegalStateException {
+        final Map<UUID, Money> found = new HashMap<>();
+        if (!ids.isEmpty()) {
+            final UUID[] uuids = ids.stream().map(AccountId::uuid).distinct().toArray(UUID[]::new);
+            try {
+                this.connections.borrow(
+                    connection -> {
+                        try (PreparedStatement stat =
+                            PgRows.prepared(
+                                connection,
+                                PgBalances.OF_ACCOUNTS,
+                                connection.createArrayOf("uuid", uuids)
+                            );
+                            ResultSet result = stat.executeQuery()) {
+                            while (result.next()) {
+                                found.put(
+                                    result.getObject("account_id", UUID.class),
+                                    Money.inMinorUnits(result.getLong("balance"))
+                                );
+                            }
+                        }
+                        return found;
+                    }
+                );
+            } catch (final SQLException exception) {
+                throw new IllegalStateException(exception);
+            }
+        }
+        final Map<AccountId, Money> balances = new LinkedHashMap<>();
+        for (final AccountId id : ids) {
+            final Money balance = found.get(id.uuid());
+            if (balance == null) {
+                throw new IllegalArgumentException(
+                    String.format(PgBalances.NOT_FOUND, id.toString())
+                );
+            }
+            balances.put(id, balance);
+        }
+        return balances;
+    }
+}
@@ -4,25 +4,74 @@
  */
 package postgres;
 
+import domain.value.Money;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Properties;
 import java.util.function.Consumer;
 import org.flywaydb.core.Flyway;
 
 /**
  * Postgres configuration.
  *
+ * <p>The connection pool is sized by the {@code pg.pool.size}, {@code pg.pool.min-idle}
+ * and {@code pg.pool.timeout} (millis) system properties, and the prepared statement cache
+ * of each connection by the {@code pg.statement-cache.size} one. Statements are prepared
+ * on the server the first time they are executed, so that cached ones reuse their plans.
+ *
+ * <p>Amounts are stored in minor units of the {@code money.scale} the schema was migrated
+ * with, which is kept in the schema and checked on start, so that a different scale never
+ * reads them off by a power of ten.
+ *
  * @since 1.0
  */
 public final class PgConfig {
 
     /**
-     * JDBC Connection.
+     * Maximum number of pooled connections.
+     */
+    private static final int POOL_SIZE = Integer.getInteger("pg.pool.size", 10);
+
+    /**
+     * Minimum number of open pooled connections.
+     */
+    private static final int POOL_MIN_IDLE = Integer.getInteger("pg.pool.min-idle", 2);
+
+    /**
+     * How long to wait for a pooled connection.
+     */
+    private static final Duration POOL_TIMEOUT =
+        Duration.ofMillis(Long.getLong("pg.pool.timeout", 5_000L));
+
+    /**
+     * Maximum number of cached prepared statements per connection.
+     */
+    private static final int CACHE_SIZE =
+        Integer.getInteger("pg.statement-cache.size", 64);
+
+    /**
+     * Scale the amounts are stored with query.
+     */
+    private static final String SCALE = "SELECT scale FROM demo.money_scale";
+
+    /**
+     * Prepared statement caches of the pooled connections.
      *
      * @checkstyle VisibilityModifierCheck (3 lines)
      */
-    public final Connection connection;
+    public final PgStatements statements;
+
+    /**
+     * JDBC connection pool.
+     *
+     * @checkstyle VisibilityModifierCheck (3 lines)
+     */
+    public final PgPool connections;
 
     /**
      * Main constructor.
@@ -30,39 +79,70 @@ public final class PgConfig {
      * @param url Postgres URL.
      * @param username Postgres username.
      * @param password Postgres password.
-     * @throws SQLException If connection cannot be created.
      */
     private PgConfig(
         final String url,
         final String username,
         final String password
-    ) throws SQLException {
-        this.connection = DriverManager.getConnection(url, username, password);
+    ) {
+        this(
+            url,
+            PgConfig.properties(username, password),
+            new PgStatements(PgConfig.CACHE_SIZE)
+        );
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param url Postgres URL.
+     * @param properties Connection properties.
+     * @param statements Prepared statement caches of the pooled connections.
+     */
+    private PgConfig(
+        final String url,
+        final Properties properties,
+        final PgStatements statements
+    ) {
+        this.statements = statements;
+        this.connections =
+            new PgPool(
+                () -> statements.cached(DriverManager.getConnection(url, properties)),
+                PgConfig.POOL_SIZE,
+                PgConfig.POOL_MIN_IDLE,
+                PgConfig.POOL_TIMEOUT
+            );
     }
 
     /**
-     * Execute operations in transaction mode.
+     * Execute operations in transaction mode on one borrowed connection.
      *
      * @param operation Operation to execute.
      * @throws IllegalStateException If execution fails.
      * @since 1.0
      */
-    @SuppressWarnings("PMD.PreserveStackTrace")
-    public void inTransaction(final Consumer<Connection> operation) throws IllegalStateException {
+    public void inTransaction(
+        final Consumer<PgConnections> operation
+    ) throws IllegalStateException {
         try {
-            this.connection.setAutoCommit(false);
-            operation.accept(this.connection);
-            this.connection.commit();
-            this.connection.setAutoCommit(true);
+            this.connections.borrow(
+                connection -> {
+                    connection.setAutoCommit(false);
+                    boolean committed = false;
+                    try {
+                        operation.accept(new PgTransaction(connection));
+                        connection.commit();
+                        committed = true;
+                    } finally {
+                        if (!committed) {
+                            connection.rollback();
+                        }
+                        connection.setAutoCommit(true);
+                    }
+                    return null;
+                }
+            );
         } catch (final SQLException exception) {
-            try {
-                this.connection.setAutoCommit(true);
-                this.connection.rollback();
-            } catch (final SQLException another) {
-                final IllegalStateException third = new IllegalStateException(exception);
-                third.addSuppressed(another);
-                throw third;
-            }
             throw new IllegalStateException(exception);
         }
     }
@@ -75,24 +155,73 @@ public final class PgConfig {
      * @param password Postgres password.
      * @return Postgres configuration.
      * @throws IllegalArgumentException If connection parameters are invalid.
+     * @throws IllegalStateException If amounts are stored with another scale.
      * @since 1.0
      */
     static PgConfig create(
         final String url,
         final String username,
         final String password
-    ) throws IllegalArgumentException {
+    ) throws IllegalArgumentException, IllegalStateException {
         Flyway
             .configure()
             .dataSource(url, username, password)
             .schemas("demo")
             .locations("classpath:db-migrations")
+            .placeholders(
+                Collections.singletonMap("money_scale", String.valueOf(Money.SCALE))
+            )
             .load()
             .migrate();
-        try {
-            return new PgConfig(url, username, password);
+        PgConfig.checkScale(url, username, password);
+        return new PgConfig(url, username, password);
+    }
+
+    /**
+     * Check the amounts are stored with the scale of {@link Money}.
+     *
+     * @param url Postgres URL.
+     * @param username Postgres username.
+     * @param password Postgres password.
+     * @throws IllegalStateException If they are stored with another scale, or reading it
+     *  fails.
+     */
+    private static void checkScale(
+        final String url,
+        final String username,
+        final String password
+    ) throws IllegalStateException {
+        try (Connection connection = DriverManager.getConnection(url, username, password);
+            Statement stat = connection.createStatement();
+            ResultSet result = stat.executeQuery(PgConfig.SCALE)) {
+            result.next();
+            final int stored = result.getInt(1);
+            if (stored != Money.SCALE) {
+                throw new IllegalStateException(
+                    String.format(
+                        "Amounts are stored with scale %d, not the money.scale of %d",
+                        stored,
+                        Money.SCALE
+                    )
+                );
+            }
         } catch (final SQLException exception) {
-            throw new IllegalArgumentException("Invalid database configuration", exception);
+            throw new IllegalStateException(exception);
         }
     }
+
+    /**
+     * Connection properties, preparing statements on the server the first time they run.
+     *
+     * @param username Postgres username.
+     * @param password Postgres password.
+     * @return Properties.
+     */
+    private static Properties properties(final String username, final String password) {
+        final Properties properties = new Properties();
+        properties.setProperty("user", username);
+        properties.setProperty("password", password);
+        properties.setProperty("prepareThreshold", "1");
+        return properties;
+    }
 }
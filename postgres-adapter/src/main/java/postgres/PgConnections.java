@@ -0,0 +1,59 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package postgres;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.stream.Stream;
+
+/**
+ * Source of JDBC connections that are borrowed for one operation at a time.
+ *
+ * @since 1.0
+ */
+public interface PgConnections {
+
+    /**
+     * Run an operation on a connection and give the connection back.
+     *
+     * @param operation Operation.
+     * @param <T> Operation result type.
+     * @return Operation result.
+     * @throws SQLException If no connection is available or the operation fails.
+     * @since 1.0
+     */
+    <T> T borrow(Operation<T> operation) throws SQLException;
+
+    /**
+     * Run an operation returning a lazy stream on a connection, and give the connection back
+     * once the stream is closed.
+     *
+     * @param operation Operation, its stream must release what it holds when closed.
+     * @param <T> Stream element type.
+     * @return Stream, to be closed by the caller.
+     * @throws SQLException If no connection is available or the operation fails.
+     * @since 1.0
+     */
+    <T> Stream<T> stream(Operation<Stream<T>> operation) throws SQLException;
+
+    /**
+     * Operation on a borrowed connection.
+     *
+     * @param <T> Operation result type.
+     * @since 1.0
+     */
+    @FunctionalInterface
+    interface Operation<T> {
+
+        /**
+         * Run the operation.
+         *
+         * @param connection Borrowed connection, must not be used once given back.
+         * @return Operation result.
+         * @throws SQLException If the operation fails.
+         */
+        T apply(Connection connection) throws SQLException;
+    }
+}
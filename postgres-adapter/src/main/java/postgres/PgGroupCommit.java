@@ -0,0 +1,297 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package postgres;
+
+import domain.value.Activity;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import port.out.StoreActivity;
+
+/**
+ * Activities store committing the activities of concurrent callers together.
+ *
+ * <p>Callers queue their activity and wait while a single flusher writes the queued ones as
+ * one batch, so that many of them share the cost of one commit. A batch is written once it
+ * is full, or once the first of its activities waited for the linger time. Every caller
+ * returns once its batch is written, or fails with the error of its batch. A batch that
+ * Postgres rejected for its data was rolled back, so it is retried one activity at a time,
+ * and only the callers of the rejected activities fail. After any other failure the batch
+ * may have been committed, so retrying it could write its activities twice: all its callers
+ * fail instead.
+ *
+ * @since 1.0
+ */
+public final class PgGroupCommit implements StoreActivity, AutoCloseable {
+
+    /**
+     * Error of the activities stored once closed.
+     */
+    private static final String CLOSED = "Group commit is closed";
+
+    /**
+     * Class of the data exception SQL states.
+     */
+    private static final String DATA = "22";
+
+    /**
+     * Class of the integrity constraint violation SQL states.
+     */
+    private static final String CONSTRAINT = "23";
+
+    /**
+     * Writes a batch of activities at once.
+     */
+    private final Consumer<List<Activity>> writer;
+
+    /**
+     * Maximum number of activities per batch.
+     */
+    private final int size;
+
+    /**
+     * How long the first activity of a batch waits for others.
+     */
+    private final Duration linger;
+
+    /**
+     * Activities waiting to be written.
+     */
+    private final BlockingQueue<Pending> queue;
+
+    /**
+     * Flusher.
+     */
+    private final ExecutorService flusher;
+
+    /**
+     * Main constructor.
+     *
+     * @param writer Writes a batch of activities at once, or throws.
+     * @param size Maximum number of activities per batch.
+     * @param linger How long the first activity of a batch waits for others.
+     */
+    private PgGroupCommit(
+        final Consumer<List<Activity>> writer,
+        final int size,
+        final Duration linger
+    ) {
+        this.writer = writer;
+        this.size = size;
+        this.linger = linger;
+        this.queue = new LinkedBlockingQueue<>();
+        this.flusher =
+            Executors.newSingleThreadExecutor(
+                runnable -> {
+                    final Thread thread = new Thread(runnable, "pg-group-commit");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            );
+    }
+
+    /**
+     * Start committing activities in groups.
+     *
+     * @param writer Writes a batch of activities at once, or throws.
+     * @param size Maximum number of activities per batch.
+     * @param linger How long the first activity of a batch waits for others.
+     * @return Running group commit.
+     * @since 1.0
+     */
+    @SuppressWarnings("PMD.ProhibitPublicStaticMethods")
+    public static PgGroupCommit start(
+        final Consumer<List<Activity>> writer,
+        final int size,
+        final Duration linger
+    ) {
+        final PgGroupCommit commit = new PgGroupCommit(writer, size, linger);
+        commit.flusher.execute(commit::flush);
+        return commit;
+    }
+
+    @Override
+    public void storeActivity(final Activity activity) throws IllegalStateException {
+        final Pending pending = new Pending(activity);
+        this.queue.add(pending);
+        if (this.flusher.isShutdown()) {
+            this.abandon(new IllegalStateException(PgGroupCommit.CLOSED));
+        }
+        try {
+            pending.done.get();
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(exception);
+        } catch (final ExecutionException exception) {
+            final RuntimeException error;
+            if (exception.getCause() instanceof RuntimeException) {
+                error = (RuntimeException) exception.getCause();
+            } else {
+                error = new IllegalStateException(exception.getCause());
+            }
+            throw error;
+        }
+    }
+
+    @Override
+    public void close() {
+        this.flusher.shutdownNow();
+        this.abandon(new IllegalStateException(PgGroupCommit.CLOSED));
+    }
+
+    /**
+     * Number of activities waiting for a batch.
+     *
+     * @return Number of activities.
+     * @since 1.0
+     */
+    int queued() {
+        return this.queue.size();
+    }
+
+    /**
+     * Write the queued activities batch after batch until interrupted.
+     */
+    private void flush() {
+        while (!Thread.currentThread().isInterrupted()) {
+            final List<Pending> batch = new ArrayList<>(this.size);
+            try {
+                batch.add(this.queue.take());
+                this.fill(batch, System.nanoTime() + this.linger.toNanos());
+            } catch (final InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+            if (!batch.isEmpty()) {
+                this.write(batch);
+            }
+        }
+    }
+
+    /**
+     * Add the queued activities to a batch until it is full or a deadline is reached.
+     *
+     * @param batch Batch, with its first activity.
+     * @param deadline Deadline, in {@link System#nanoTime()} units.
+     * @throws InterruptedException If interrupted while waiting for activities.
+     */
+    private void fill(
+        final List<Pending> batch,
+        final long deadline
+    ) throws InterruptedException {
+        this.queue.drainTo(batch, this.size - batch.size());
+        while (batch.size() < this.size) {
+            final Pending next =
+                this.queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+            this.queue.drainTo(batch, this.size - batch.size());
+        }
+    }
+
+    /**
+     * Write a batch and acknowledge its callers. A batch rejected for its data is retried one
+     * activity at a time, any other failure fails all its callers.
+     *
+     * @param batch Batch.
+     */
+    private void write(final List<Pending> batch) {
+        final List<Activity> activities = new ArrayList<>(batch.size());
+        for (final Pending pending : batch) {
+            activities.add(pending.activity);
+        }
+        try {
+            this.writer.accept(activities);
+            for (final Pending pending : batch) {
+                pending.done.complete(null);
+            }
+        } catch (final IllegalArgumentException | IllegalStateException exception) {
+            if (batch.size() > 1 && PgGroupCommit.rejected(exception)) {
+                for (final Pending pending : batch) {
+                    this.write(Collections.singletonList(pending));
+                }
+            } else {
+                for (final Pending pending : batch) {
+                    pending.done.completeExceptionally(exception);
+                }
+            }
+        }
+    }
+
+    /**
+     * Fail the callers of all queued activities.
+     *
+     * @param error Error.
+     */
+    private void abandon(final RuntimeException error) {
+        final List<Pending> abandoned = new ArrayList<>(this.queue.size());
+        this.queue.drainTo(abandoned);
+        for (final Pending pending : abandoned) {
+            pending.done.completeExceptionally(error);
+        }
+    }
+
+    /**
+     * Whether a batch failed because Postgres rejected its data, with a data exception or an
+     * integrity constraint violation. The failed statement then rolled the batch back, so
+     * that its activities can be written again one by one. After any other failure, such as
+     * a connection lost while committing, the batch may have been written.
+     *
+     * @param error Error of the writer.
+     * @return True if the batch was rejected for its data.
+     */
+    private static boolean rejected(final Throwable error) {
+        boolean result = false;
+        for (Throwable cause = error; cause != null && !result; cause = cause.getCause()) {
+            if (cause instanceof SQLException) {
+                final String state = ((SQLException) cause).getSQLState();
+                result =
+                    state != null
+                        && (state.startsWith(PgGroupCommit.DATA)
+                        || state.startsWith(PgGroupCommit.CONSTRAINT));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Activity waiting to be written.
+     *
+     * @since 1.0
+     */
+    private static final class Pending {
+
+        /**
+         * Activity.
+         */
+        private final Activity activity;
+
+        /**
+         * Completed once the activity is written.
+         */
+        private final CompletableFuture<Void> done;
+
+        /**
+         * Main constructor.
+         *
+         * @param activity Activity.
+         */
+        Pending(final Activity activity) {
+            this.activity = activity;
+            this.done = new CompletableFuture<>();
+        }
+    }
+}
@@ -0,0 +1,582 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package postgres;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded pool of JDBC connections.
+ *
+ * <p>Connections are opened on demand up to the pool size, and at least a minimum number of
+ * them are kept open. Borrowers wait up to a timeout for a connection to be given back once
+ * all are in use. A connection that stayed idle for a while is validated before being
+ * handed out, and one that turns out to be broken is closed and replaced.
+ *
+ * @since 1.0
+ */
+@SuppressWarnings("PMD.TooManyMethods")
+public final class PgPool implements PgConnections, AutoCloseable {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(PgPool.class);
+
+    /**
+     * How long a connection may stay idle before it is validated again.
+     */
+    private static final long VALIDATION_WINDOW = TimeUnit.MILLISECONDS.toNanos(500L);
+
+    /**
+     * How long validating a connection may take, in seconds.
+     */
+    private static final int CHECK_TIMEOUT = 2;
+
+    /**
+     * Opens new connections.
+     */
+    private final Factory factory;
+
+    /**
+     * Maximum number of connections.
+     */
+    private final int size;
+
+    /**
+     * Minimum number of open connections.
+     */
+    private final int minimum;
+
+    /**
+     * How long to wait for a connection.
+     */
+    private final Duration timeout;
+
+    /**
+     * Pool state lock.
+     */
+    private final ReentrantLock lock;
+
+    /**
+     * Signalled when a connection is given back or a slot is freed.
+     */
+    private final Condition available;
+
+    /**
+     * Idle connections, most recently used first.
+     */
+    private final Deque<Idle> idle;
+
+    /**
+     * Number of open connections, or being opened.
+     */
+    private int total;
+
+    /**
+     * Number of borrowers waiting for a connection.
+     */
+    private int waiters;
+
+    /**
+     * Number of connections handed out so far.
+     */
+    private long acquisitions;
+
+    /**
+     * Time borrowers spent waiting for connections so far, in nanos.
+     */
+    private long waited;
+
+    /**
+     * Whether the pool is closed.
+     */
+    private boolean closed;
+
+    /**
+     * Main constructor.
+     *
+     * @param factory Opens new connections.
+     * @param size Maximum number of connections.
+     * @param minimum Minimum number of open connections.
+     * @param timeout How long to wait for a connection.
+     * @since 1.0
+     * @checkstyle ParameterNumberCheck (4 lines)
+     */
+    @SuppressWarnings("PMD.ConstructorOnlyInitializesOrCallOtherConstructors")
+    public PgPool(
+        final Factory factory,
+        final int size,
+        final int minimum,
+        final Duration timeout
+    ) {
+        this.factory = factory;
+        this.size = size;
+        this.minimum = Math.min(minimum, size);
+        this.timeout = timeout;
+        this.lock = new ReentrantLock();
+        this.available = this.lock.newCondition();
+        this.idle = new ArrayDeque<>(size);
+        this.fill();
+    }
+
+    @Override
+    @SuppressWarnings("PMD.CloseResource")
+    public <T> T borrow(final Operation<T> operation) throws SQLException {
+        final Connection connection = this.acquire();
+        boolean broken = true;
+        try {
+            final T result = operation.apply(connection);
+            broken = false;
+            return result;
+        } finally {
+            this.release(connection, broken);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("PMD.CloseResource")
+    public <T> Stream<T> stream(final Operation<Stream<T>> operation) throws SQLException {
+        final Connection connection = this.acquire();
+        boolean broken = true;
+        try {
+            final Stream<T> result =
+                operation.apply(connection).onClose(() -> this.release(connection, false));
+            broken = false;
+            return result;
+        } finally {
+            if (broken) {
+                this.release(connection, true);
+            }
+        }
+    }
+
+    /**
+     * Current pool metrics.
+     *
+     * @return Metrics.
+     * @since 1.0
+     */
+    public Metrics metrics() {
+        this.lock.lock();
+        try {
+            return
+                new Metrics(
+                    this.total - this.idle.size(),
+                    this.idle.size(),
+                    this.waiters,
+                    this.acquisitions,
+                    Duration.ofNanos(this.waited)
+                );
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        this.lock.lock();
+        try {
+            this.closed = true;
+            while (!this.idle.isEmpty()) {
+                this.total -= 1;
+                PgPool.discard(this.idle.pop().connection);
+            }
+            this.available.signalAll();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Take an idle connection, open a new one, or wait for one to be given back.
+     *
+     * @return Connection.
+     * @throws SQLException If no connection is available in time or opening one fails.
+     */
+    private Connection acquire() throws SQLException {
+        final long start = System.nanoTime();
+        final long deadline = start + this.timeout.toNanos();
+        Connection connection = null;
+        while (connection == null) {
+            final Idle candidate = this.reserve(deadline);
+            if (candidate == null) {
+                connection = this.open();
+            } else if (PgPool.valid(candidate)) {
+                connection = candidate.connection;
+            } else {
+                this.remove(candidate.connection);
+            }
+        }
+        this.lock.lock();
+        try {
+            this.acquisitions += 1;
+            this.waited += System.nanoTime() - start;
+        } finally {
+            this.lock.unlock();
+        }
+        return connection;
+    }
+
+    /**
+     * Reserve an idle connection or a free slot for a new one.
+     *
+     * @param deadline Deadline in nanos.
+     * @return Idle connection, null if a slot for a new connection was reserved.
+     * @throws SQLException If nothing is available before the deadline.
+     */
+    private Idle reserve(final long deadline) throws SQLException {
+        this.lock.lock();
+        try {
+            this.await(deadline);
+            if (this.closed) {
+                throw new SQLTransientConnectionException("Connection pool is closed");
+            }
+            if (this.idle.isEmpty() && this.total >= this.size) {
+                throw new SQLTransientConnectionException(
+                    String.format("No connection available within %s", this.timeout)
+                );
+            }
+            final Idle result;
+            if (this.idle.isEmpty()) {
+                this.total += 1;
+                result = null;
+            } else {
+                result = this.idle.pop();
+            }
+            return result;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Wait, holding the pool lock, until the pool is closed, a connection is idle or a slot
+     * is free, or the deadline passes.
+     *
+     * @param deadline Deadline in nanos.
+     * @throws SQLException If the thread is interrupted.
+     */
+    private void await(final long deadline) throws SQLException {
+        this.waiters += 1;
+        try {
+            long remaining = deadline - System.nanoTime();
+            while (!this.closed && this.idle.isEmpty() && this.total >= this.size
+                && remaining > 0L) {
+                remaining = this.available.awaitNanos(remaining);
+            }
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException(
+                "Interrupted waiting for a connection",
+                exception
+            );
+        } finally {
+            this.waiters -= 1;
+        }
+    }
+
+    /**
+     * Open a connection in a reserved slot, freeing the slot if that fails.
+     *
+     * @return Connection.
+     * @throws SQLException If opening the connection fails.
+     */
+    private Connection open() throws SQLException {
+        boolean opened = false;
+        try {
+            final Connection connection = this.factory.open();
+            opened = true;
+            return connection;
+        } finally {
+            if (!opened) {
+                this.remove(null);
+            }
+        }
+    }
+
+    /**
+     * Give a connection back to the pool.
+     *
+     * @param connection Connection.
+     * @param failed Whether the operation on it failed.
+     */
+    private void release(final Connection connection, final boolean failed) {
+        boolean reusable;
+        try {
+            reusable = !(failed && connection.isClosed());
+            if (reusable && !connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+        } catch (final SQLException exception) {
+            reusable = false;
+        }
+        if (reusable) {
+            this.lock.lock();
+            try {
+                if (this.closed) {
+                    this.total -= 1;
+                    PgPool.discard(connection);
+                } else {
+                    this.idle.push(new Idle(connection));
+                    this.available.signal();
+                }
+            } finally {
+                this.lock.unlock();
+            }
+        } else {
+            this.remove(connection);
+        }
+    }
+
+    /**
+     * Close a broken connection, or free the slot of one that failed to open, and top the
+     * pool back up to its minimum.
+     *
+     * @param connection Connection, null if it was never opened.
+     */
+    private void remove(final Connection connection) {
+        if (connection != null) {
+            PgPool.discard(connection);
+        }
+        this.lock.lock();
+        try {
+            this.total -= 1;
+            this.available.signal();
+        } finally {
+            this.lock.unlock();
+        }
+        this.fill();
+    }
+
+    /**
+     * Open connections until the minimum number of them is open.
+     */
+    private void fill() {
+        boolean missing = true;
+        while (missing) {
+            this.lock.lock();
+            try {
+                missing = !this.closed && this.total < this.minimum;
+                if (missing) {
+                    this.total += 1;
+                }
+            } finally {
+                this.lock.unlock();
+            }
+            if (missing) {
+                try {
+                    this.release(this.factory.open(), false);
+                } catch (final SQLException exception) {
+                    PgPool.LOGGER.warn("Opening an idle connection failed", exception);
+                    this.lock.lock();
+                    try {
+                        this.total -= 1;
+                    } finally {
+                        this.lock.unlock();
+                    }
+                    missing = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Check whether an idle connection still works.
+     *
+     * @param candidate Idle connection.
+     * @return Whether it can be handed out.
+     */
+    private static boolean valid(final Idle candidate) {
+        boolean result;
+        if (System.nanoTime() - candidate.since < PgPool.VALIDATION_WINDOW) {
+            result = true;
+        } else {
+            try {
+                result = candidate.connection.isValid(PgPool.CHECK_TIMEOUT);
+            } catch (final SQLException exception) {
+                result = false;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Close a connection, ignoring failures.
+     *
+     * @param connection Connection.
+     */
+    private static void discard(final Connection connection) {
+        try {
+            connection.close();
+        } catch (final SQLException exception) {
+            PgPool.LOGGER.debug("Closing a connection failed", exception);
+        }
+    }
+
+    /**
+     * Opens new connections.
+     *
+     * @since 1.0
+     */
+    @FunctionalInterface
+    public interface Factory {
+
+        /**
+         * Open a connection.
+         *
+         * @return Connection.
+         * @throws SQLException If opening the connection fails.
+         */
+        Connection open() throws SQLException;
+    }
+
+    /**
+     * Pool metrics at a point in time.
+     *
+     * @since 1.0
+     */
+    @SuppressWarnings("PMD.DataClass")
+    public static final class Metrics {
+
+        /**
+         * Connections in use.
+         */
+        private final int busy;
+
+        /**
+         * Idle connections.
+         */
+        private final int spare;
+
+        /**
+         * Borrowers waiting for a connection.
+         */
+        private final int queued;
+
+        /**
+         * Connections handed out so far.
+         */
+        private final long handed;
+
+        /**
+         * Time spent waiting for connections so far.
+         */
+        private final Duration delay;
+
+        /**
+         * Main constructor.
+         *
+         * @param active Connections in use.
+         * @param idle Idle connections.
+         * @param waiters Borrowers waiting for a connection.
+         * @param acquisitions Connections handed out so far.
+         * @param waited Time spent waiting for connections so far.
+         * @checkstyle ParameterNumberCheck (3 lines)
+         */
+        Metrics(
+            final int active,
+            final int idle,
+            final int waiters,
+            final long acquisitions,
+            final Duration waited
+        ) {
+            this.busy = active;
+            this.spare = idle;
+            this.queued = waiters;
+            this.handed = acquisitions;
+            this.delay = waited;
+        }
+
+        /**
+         * Connections in use.
+         *
+         * @return Number of connections.
+         * @since 1.0
+         */
+        public int active() {
+            return this.busy;
+        }
+
+        /**
+         * Idle connections.
+         *
+         * @return Number of connections.
+         * @since 1.0
+         */
+        public int idle() {
+            return this.spare;
+        }
+
+        /**
+         * Borrowers waiting for a connection.
+         *
+         * @return Number of borrowers.
+         * @since 1.0
+         */
+        public int waiters() {
+            return this.queued;
+        }
+
+        /**
+         * Connections handed out so far.
+         *
+         * @return Number of acquisitions.
+         * @since 1.0
+         */
+        public long acquisitions() {
+            return this.handed;
+        }
+
+        /**
+         * Time spent waiting for connections so far, including opening new ones.
+         *
+         * @return Total wait time.
+         * @since 1.0
+         */
+        public Duration waited() {
+            return this.delay;
+        }
+    }
+
+    /**
+     * Idle connection.
+     *
+     * @since 1.0
+     */
+    private static final class Idle {
+
+        /**
+         * Connection.
+         */
+        private final Connection connection;
+
+        /**
+         * When the connection became idle, in nanos.
+         */
+        private final long since;
+
+        /**
+         * Main constructor.
+         *
+         * @param connection Connection.
+         */
+        Idle(final Connection connection) {
+            this.connection = connection;
+            this.since = System.nanoTime();
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package postgres;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Rows of a result set, decoded one at a time as a stream pulls them.
+ *
+ * @param <T> Decoded row type.
+ * @since 1.0
+ */
+final class PgRows<T> extends Spliterators.AbstractSpliterator<T> {
+
+    /**
+     * Number of rows read at a time through a cursor.
+     */
+    private static final int FETCH_SIZE = Integer.getInteger("pg.fetch-size", 256);
+
+    /**
+     * Make the current transaction a read-only repeatable read one query.
+     */
+    private static final String REPEATABLE =
+        "SET TRANSACTION ISOLATION LEVEL REPEATABLE READ, READ ONLY";
+
+    /**
+     * Result set.
+     */
+    private final ResultSet result;
+
+    /**
+     * Row decoder.
+     */
+    private final Row<T> row;
+
+    /**
+     * Main constructor.
+     *
+     * @param result Result set.
+     * @param row Row decoder.
+     */
+    private PgRows(final ResultSet result, final Row<T> row) {
+        super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+        this.result = result;
+        this.row = row;
+    }
+
+    @Override
+    public boolean tryAdvance(final Consumer<? super T> action) {
+        try {
+            final boolean found = this.result.next();
+            if (found) {
+                action.accept(this.row.read(this.result));
+            }
+            return found;
+        } catch (final SQLException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    /**
+     * Lazy stream of the rows of a result set.
+     *
+     * @param result Result set.
+     * @param row Row decoder.
+     * @param <T> Decoded row type.
+     * @return Stream of decoded rows.
+     */
+    static <T> Stream<T> stream(final ResultSet result, final Row<T> row) {
+        return StreamSupport.stream(new PgRows<>(result, row), false);
+    }
+
+    /**
+     * Prepared statement with its parameters set.
+     *
+     * @param connection Connection.
+     * @param query Query.
+     * @param parameters Parameters, in order.
+     * @return Statement, closed if setting a parameter fails.
+     * @throws SQLException If preparing the statement fails.
+     */
+    static PreparedStatement prepared(
+        final Connection connection,
+        final String query,
+        final Object... parameters
+    ) throws SQLException {
+        final PreparedStatement statement = connection.prepareStatement(query);
+        try {
+            for (int idx = 0; idx < parameters.length; idx += 1) {
+                statement.setObject(idx + 1, parameters[idx]);
+            }
+        } catch (final SQLException exception) {
+            statement.close();
+            throw exception;
+        }
+        return statement;
+    }
+
+    /**
+     * Statement reading its results through a cursor, a batch of rows at a time.
+     *
+     * <p>Postgres only keeps a cursor open within a transaction, so the connection must not
+     * be in auto-commit mode.
+     *
+     * @param connection Connection.
+     * @return Statement.
+     * @throws SQLException If creating the statement fails.
+     */
+    static Statement cursor(final Connection connection) throws SQLException {
+        final Statement statement =
+            connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        statement.setFetchSize(PgRows.FETCH_SIZE);
+        return statement;
+    }
+
+    /**
+     * Action closing a statement, and its result set, when a stream is closed. It throws an
+     * {@link IllegalStateException} if closing the statement fails.
+     *
+     * @param statement Statement.
+     * @return Close handler.
+     */
+    static Runnable closing(final Statement statement) {
+        return () -> {
+            try {
+                statement.close();
+            } catch (final SQLException exception) {
+                throw new IllegalStateException(exception);
+            }
+        };
+    }
+
+    /**
+     * Run reads on one snapshot of the database, in a read-only repeatable read transaction
+     * of their own unless the connection already is in a transaction.
+     *
+     * @param connection Connection.
+     * @param reads Reads.
+     * @param <T> Result type.
+     * @return Result of the reads.
+     * @throws SQLException If the reads fail.
+     */
+    static <T> T consistent(
+        final Connection connection,
+        final PgConnections.Operation<T> reads
+    ) throws SQLException {
+        final boolean began = PgRows.begin(connection);
+        final T result = reads.apply(connection);
+        if (began) {
+            connection.setAutoCommit(true);
+        }
+        return result;
+    }
+
+    /**
+     * Begin a read-only repeatable read transaction, so that the statements that follow all
+     * read the snapshot of the database taken by the first one, unless the connection already
+     * is in a transaction.
+     *
+     * @param connection Connection.
+     * @return True if the transaction was begun, false if one was running.
+     * @throws SQLException If beginning the transaction fails.
+     */
+    static boolean begin(final Connection connection) throws SQLException {
+        final boolean began = connection.getAutoCommit();
+        if (began) {
+            connection.setAutoCommit(false);
+            try (Statement stat = connection.createStatement()) {
+                stat.execute(PgRows.REPEATABLE);
+            }
+        }
+        return began;
+    }
+
+    /**
+     * Decoder of the current row of a result set.
+     *
+     * @param <T> Decoded row type.
+     * @since 1.0
+     */
+    @FunctionalInterface
+    interface Row<T> {
+
+        /**
+         * Decode the current row.
+         *
+         * @param result Result set, on the row to decode.
+         * @return Decoded row.
+         * @throws SQLException If reading the row fails.
+         */
+        T read(ResultSet result) throws SQLException;
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package postgres;
+
+import domain.value.AccountId;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Balance snapshots repository.
+ *
+ * <p>A snapshot is the balance of an account including every activity up to the time it
+ * covers, so that accounts can be loaded from it and the activities that followed it only.
+ * Activities committed after a snapshot already covers their time are added to it by the
+ * statement storing them, so that none of them is ever skipped. Snapshots are rolled forward
+ * a few accounts at a time, each pass reading only the activities since the previous one.
+ *
+ * @since 1.0
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class PgSnapshots {
+
+    /**
+     * Table name.
+     */
+    static final String TABLE_NAME = "demo.balance_snapshots";
+
+    /**
+     * Money moved in and out of the account of an accounts row after its snapshot and up to
+     * a datetime query, taking the datetime. Each leg of the activities is read from its own
+     * index, from the time the snapshot covers on.
+     */
+    private static final String MOVES =
+        String.join(
+            " ",
+            "SELECT",
+            "COALESCE(SUM(CASE WHEN target_account = owner THEN money ELSE 0 END)",
+            "- SUM(CASE WHEN source_account = owner THEN money ELSE 0 END), 0) AS moved",
+            "FROM",
+            String.format("(%s) AS owned", PgActivities.BY_OWNER),
+            "WHERE owner = accounts.account_id",
+            "AND time_stamp > COALESCE(snapshots.covered_until, '-infinity')",
+            "AND time_stamp <= ?"
+        );
+
+    /**
+     * Roll the snapshots of accounts forward query, taking the datetime they cover, then an
+     * array of account Ids.
+     */
+    private static final String ROLL_FORWARD =
+        String.join(
+            " ",
+            "INSERT INTO",
+            PgSnapshots.TABLE_NAME,
+            "(account_id, balance, covered_until)",
+            "SELECT account_id, COALESCE(balance, start_balance) + moved,",
+            "CAST(? AS TIMESTAMP)",
+            "FROM",
+            PgAccounts.TABLE_NAME,
+            "AS accounts",
+            "LEFT OUTER JOIN",
+            PgSnapshots.TABLE_NAME,
+            "AS snapshots",
+            "USING (account_id)",
+            "CROSS JOIN LATERAL",
+            String.format("(%s) AS moves", PgSnapshots.MOVES),
+            "WHERE account_id = ANY(?)",
+            "AND (covered_until IS NULL OR covered_until < ?)",
+            "ON CONFLICT (account_id) DO UPDATE",
+            "SET balance = EXCLUDED.balance, covered_until = EXCLUDED.covered_until"
+        );
+
+    /**
+     * JDBC connections.
+     */
+    private final PgConnections connections;
+
+    /**
+     * Main constructor.
+     *
+     * @param connections JDBC connections, one is borrowed for each operation.
+     * @since 1.0
+     */
+    public PgSnapshots(final PgConnections connections) {
+        this.connections = connections;
+    }
+
+    /**
+     * Move the snapshots of accounts forward to cover all their activities up to a datetime.
+     *
+     * <p>The summaries of the accounts are locked until the transaction ends, as the
+     * statements storing activities do, so that those being stored are either read by it, or
+     * see the snapshots it wrote and add themselves to them. It should thus run in a
+     * transaction, and only holds back the activities of those accounts.
+     *
+     * @param ids Account Ids.
+     * @param until Datetime the new snapshots cover.
+     * @return Number of snapshots written.
+     * @throws IllegalStateException If writing snapshots fails.
+     * @since 1.0
+     */
+    int rollForward(
+        final List<AccountId> ids,
+        final LocalDateTime until
+    ) throws IllegalStateException {
+        final Timestamp time = Timestamp.from(until.toInstant(ZoneOffset.UTC));
+        final UUID[] uuids = ids.stream().map(AccountId::uuid).toArray(UUID[]::new);
+        try {
+            return
+                this.connections.borrow(
+                    connection -> {
+                        PgAccountSummaries.lockAll(connection, uuids);
+                        try (PreparedStatement stat =
+                            PgRows.prepared(
+                                connection,
+                                PgSnapshots.ROLL_FORWARD,
+                                time,
+                                time,
+                                connection.createArrayOf("uuid", uuids),
+                                time
+                            )) {
+                            return stat.executeUpdate();
+                        }
+                    }
+                );
+        } catch (final SQLException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package postgres;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Background job rolling balance snapshots forward.
+ *
+ * <p>Snapshots lag behind the current time, so that activities timestamped before they
+ * were committed rarely have to be added to a snapshot that was taken in between. Snapshots
+ * are rolled forward one page of accounts per transaction, so that only the activities of
+ * the accounts of that page wait for it.
+ *
+ * @since 1.0
+ */
+public final class PgSnapshotter implements AutoCloseable {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(PgSnapshotter.class);
+
+    /**
+     * Number of accounts whose snapshots are rolled forward in the same transaction.
+     */
+    private static final int PAGE_SIZE = Integer.getInteger("pg.snapshot-page", 100);
+
+    /**
+     * Postgres configuration.
+     */
+    private final PgConfig config;
+
+    /**
+     * How far behind the current time snapshots are taken.
+     */
+    private final Duration lag;
+
+    /**
+     * Scheduler.
+     */
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Main constructor.
+     *
+     * @param config Postgres configuration.
+     * @param lag How far behind the current time snapshots are taken.
+     */
+    private PgSnapshotter(final PgConfig config, final Duration lag) {
+        this.config = config;
+        this.lag = lag;
+        this.scheduler =
+            Executors.newSingleThreadScheduledExecutor(
+                runnable -> {
+                    final Thread thread = new Thread(runnable, "pg-snapshotter");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            );
+    }
+
+    /**
+     * Start rolling snapshots forward periodically.
+     *
+     * @param config Postgres configuration.
+     * @param interval Time between two snapshots.
+     * @param lag How far behind the current time snapshots are taken.
+     * @return Running snapshotter.
+     * @since 1.0
+     */
+    @SuppressWarnings("PMD.ProhibitPublicStaticMethods")
+    public static PgSnapshotter start(
+        final PgConfig config,
+        final Duration interval,
+        final Duration lag
+    ) {
+        final PgSnapshotter snapshotter = new PgSnapshotter(config, lag);
+        snapshotter.scheduler.scheduleWithFixedDelay(
+            snapshotter::snapshot,
+            interval.toMillis(),
+            interval.toMillis(),
+            TimeUnit.MILLISECONDS
+        );
+        return snapshotter;
+    }
+
+    /**
+     * Roll all snapshots forward once.
+     *
+     * @since 1.0
+     */
+    public void snapshot() {
+        try {
+            final int count =
+                PgSnapshotter.rollForward(this.config, LocalDateTime.now().minus(this.lag));
+            PgSnapshotter.LOGGER.debug("Rolled {} balance snapshots forward", count);
+        } catch (final IllegalStateException exception) {
+            PgSnapshotter.LOGGER.error("Rolling balance snapshots forward failed", exception);
+        }
+    }
+
+    @Override
+    public void close() {
+        this.scheduler.shutdownNow();
+    }
+
+    /**
+     * Roll the snapshots of every account forward to a datetime, one page of accounts per
+     * transaction.
+     *
+     * @param config Postgres configuration.
+     * @param until Datetime the new snapshots cover.
+     * @return Number of snapshots written.
+     * @throws IllegalStateException If writing snapshots fails.
+     */
+    static int rollForward(
+        final PgConfig config,
+        final LocalDateTime until
+    ) throws IllegalStateException {
+        final AtomicInteger count = new AtomicInteger();
+        PgAccounts.inPages(
+            config,
+            PgSnapshotter.PAGE_SIZE,
+            (transaction, ids) ->
+                count.addAndGet(new PgSnapshots(transaction).rollForward(ids, until))
+        );
+        return count.get();
+    }
+}
@@ -0,0 +1,339 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package postgres;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Prepared statement caches of connections.
+ *
+ * <p>Every wrapped connection keeps its prepared statements by SQL string, evicting the least
+ * recently used one once the cache is full. Closing a cached statement only clears its
+ * parameters and restores the settings a borrower may have changed, such as its fetch size,
+ * so the next operation preparing the same SQL on that connection reuses it as if it were
+ * new, along with the server-side prepared statement and plan behind it. Hit and miss
+ * counters are shared by all the wrapped connections, which the driver's own statement
+ * cache does not report.
+ *
+ * @since 1.0
+ */
+public final class PgStatements {
+
+    /**
+     * Name of the method preparing statements.
+     */
+    private static final String PREPARE = "prepareStatement";
+
+    /**
+     * Name of the method closing connections and statements.
+     */
+    private static final String CLOSE = "close";
+
+    /**
+     * Load factor of the caches, the default one of hash maps.
+     */
+    private static final float LOAD = 0.75f;
+
+    /**
+     * Maximum number of cached statements per connection.
+     */
+    private final int size;
+
+    /**
+     * Statements found in a cache.
+     */
+    private final AtomicLong found;
+
+    /**
+     * Statements prepared because they were not cached.
+     */
+    private final AtomicLong missed;
+
+    /**
+     * Statements evicted from a cache.
+     */
+    private final AtomicLong evicted;
+
+    /**
+     * Main constructor.
+     *
+     * @param size Maximum number of cached statements per connection.
+     * @since 1.0
+     */
+    public PgStatements(final int size) {
+        this.size = size;
+        this.found = new AtomicLong();
+        this.missed = new AtomicLong();
+        this.evicted = new AtomicLong();
+    }
+
+    /**
+     * Wrap a connection so that it caches its prepared statements.
+     *
+     * @param connection Connection.
+     * @return Caching connection.
+     * @since 1.0
+     */
+    public Connection cached(final Connection connection) {
+        return
+            (Connection) Proxy.newProxyInstance(
+                Thread.currentThread().getContextClassLoader(),
+                new Class<?>[] {Connection.class},
+                this.new Cache(connection)
+            );
+    }
+
+    /**
+     * Statements found in a cache so far.
+     *
+     * @return Number of hits.
+     * @since 1.0
+     */
+    public long hits() {
+        return this.found.get();
+    }
+
+    /**
+     * Statements prepared so far because they were not cached.
+     *
+     * @return Number of misses.
+     * @since 1.0
+     */
+    public long misses() {
+        return this.missed.get();
+    }
+
+    /**
+     * Statements evicted from a cache so far.
+     *
+     * @return Number of evictions.
+     * @since 1.0
+     */
+    public long evictions() {
+        return this.evicted.get();
+    }
+
+    /**
+     * Invoke a method on a target, unwrapping the exception it throws.
+     *
+     * @param target Target.
+     * @param method Method.
+     * @param args Arguments.
+     * @return Method result.
+     * @throws Throwable Exception thrown by the method.
+     * @checkstyle IllegalThrowsCheck (6 lines)
+     */
+    private static Object invoke(
+        final Object target,
+        final Method method,
+        final Object... args
+    ) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (final InvocationTargetException exception) {
+            throw exception.getCause();
+        }
+    }
+
+    /**
+     * Statement cache of one connection.
+     *
+     * <p>A connection is only used by one borrower at a time, so the cache is not
+     * synchronized.
+     *
+     * @since 1.0
+     */
+    private final class Cache implements InvocationHandler {
+
+        /**
+         * Connection.
+         */
+        private final Connection connection;
+
+        /**
+         * Statements by SQL, least recently used first.
+         */
+        private final Map<String, Cached> statements;
+
+        /**
+         * Main constructor.
+         *
+         * @param connection Connection.
+         */
+        Cache(final Connection connection) {
+            this.connection = connection;
+            this.statements = new LinkedHashMap<>(PgStatements.this.size, PgStatements.LOAD, true);
+        }
+
+        @Override
+        @SuppressWarnings("PMD.UseVarargs")
+        public Object invoke(
+            final Object proxy,
+            final Method method,
+            final Object[] args
+        ) throws Throwable {
+            final Object result;
+            if (PgStatements.PREPARE.equals(method.getName())
+                && method.getParameterCount() == 1) {
+                result = this.prepare((String) args[0]);
+            } else if (PgStatements.CLOSE.equals(method.getName())) {
+                try {
+                    this.clear();
+                } finally {
+                    result = PgStatements.invoke(this.connection, method, args);
+                }
+            } else {
+                result = PgStatements.invoke(this.connection, method, args);
+            }
+            return result;
+        }
+
+        /**
+         * Find a cached statement or prepare and cache it.
+         *
+         * @param sql SQL.
+         * @return Statement, to be closed by the caller.
+         * @throws SQLException If preparing the statement fails.
+         */
+        private PreparedStatement prepare(final String sql) throws SQLException {
+            final Cached cached = this.statements.get(sql);
+            final PreparedStatement result;
+            if (cached == null) {
+                PgStatements.this.missed.incrementAndGet();
+                final Cached prepared = new Cached(this.connection.prepareStatement(sql));
+                prepared.used = true;
+                this.statements.put(sql, prepared);
+                this.evict();
+                result = prepared.lent;
+            } else if (cached.used) {
+                PgStatements.this.missed.incrementAndGet();
+                result = this.connection.prepareStatement(sql);
+            } else {
+                PgStatements.this.found.incrementAndGet();
+                cached.used = true;
+                result = cached.lent;
+            }
+            return result;
+        }
+
+        /**
+         * Close the least recently used statements beyond the cache size.
+         *
+         * @throws SQLException If closing a statement fails.
+         */
+        private void evict() throws SQLException {
+            final Iterator<Cached> iterator = this.statements.values().iterator();
+            while (this.statements.size() > PgStatements.this.size && iterator.hasNext()) {
+                final Cached eldest = iterator.next();
+                if (!eldest.used) {
+                    iterator.remove();
+                    PgStatements.this.evicted.incrementAndGet();
+                    eldest.statement.close();
+                }
+            }
+        }
+
+        /**
+         * Close all cached statements.
+         *
+         * @throws SQLException If closing a statement fails.
+         */
+        private void clear() throws SQLException {
+            final List<Cached> cached = new ArrayList<>(this.statements.values());
+            this.statements.clear();
+            for (final Cached entry : cached) {
+                entry.statement.close();
+            }
+        }
+    }
+
+    /**
+     * Cached statement, which is given back to the cache when closed.
+     *
+     * @since 1.0
+     */
+    private static final class Cached implements InvocationHandler {
+
+        /**
+         * Statement.
+         */
+        private final PreparedStatement statement;
+
+        /**
+         * Statement handed to borrowers.
+         */
+        private final PreparedStatement lent;
+
+        /**
+         * Whether a borrower holds the statement.
+         */
+        private boolean used;
+
+        /**
+         * Main constructor.
+         *
+         * @param statement Statement.
+         */
+        Cached(final PreparedStatement statement) {
+            this.statement = statement;
+            this.lent =
+                (PreparedStatement) Proxy.newProxyInstance(
+                    Thread.currentThread().getContextClassLoader(),
+                    new Class<?>[] {PreparedStatement.class},
+                    this
+                );
+        }
+
+        @Override
+        @SuppressWarnings("PMD.UseVarargs")
+        public Object invoke(
+            final Object proxy,
+            final Method method,
+            final Object[] args
+        ) throws Throwable {
+            final Object result;
+            if (PgStatements.CLOSE.equals(method.getName())) {
+                this.reset();
+                this.used = false;
+                result = null;
+            } else if ("isClosed".equals(method.getName())) {
+                result = !this.used || this.statement.isClosed();
+            } else {
+                result = PgStatements.invoke(this.statement, method, args);
+            }
+            return result;
+        }
+
+        /**
+         * Clear the parameters of the statement and restore its settings to the driver
+         * defaults, which the connections do not change.
+         *
+         * @throws SQLException If resetting the statement fails.
+         */
+        private void reset() throws SQLException {
+            this.statement.clearParameters();
+            this.statement.clearBatch();
+            this.statement.clearWarnings();
+            this.statement.setFetchSize(0);
+            this.statement.setFetchDirection(ResultSet.FETCH_FORWARD);
+            this.statement.setMaxRows(0);
+            this.statement.setMaxFieldSize(0);
+            this.statement.setQueryTimeout(0);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package postgres;
+
+import domain.value.AccountId;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Background job rebuilding the account summaries from the activities.
+ *
+ * <p>The summaries are kept up to date by the statements storing accounts and activities,
+ * so this only repairs those changed by hand. The summaries are rebuilt one page of accounts
+ * per transaction, holding back only the activities of the accounts of that page while they
+ * are rebuilt, but reading all the activities once per run, so it should run rarely.
+ *
+ * @since 1.0
+ */
+public final class PgSummaryRepairer implements AutoCloseable {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(PgSummaryRepairer.class);
+
+    /**
+     * Number of accounts whose summaries are rebuilt in the same transaction.
+     */
+    private static final int PAGE_SIZE = Integer.getInteger("pg.repair-page", 100);
+
+    /**
+     * Postgres configuration.
+     */
+    private final PgConfig config;
+
+    /**
+     * Scheduler.
+     */
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Main constructor.
+     *
+     * @param config Postgres configuration.
+     */
+    private PgSummaryRepairer(final PgConfig config) {
+        this.config = config;
+        this.scheduler =
+            Executors.newSingleThreadScheduledExecutor(
+                runnable -> {
+                    final Thread thread = new Thread(runnable, "pg-summary-repairer");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            );
+    }
+
+    /**
+     * Start rebuilding the summaries periodically.
+     *
+     * @param config Postgres configuration.
+     * @param interval Time between two rebuilds.
+     * @return Running repairer.
+     * @since 1.0
+     */
+    @SuppressWarnings("PMD.ProhibitPublicStaticMethods")
+    public static PgSummaryRepairer start(final PgConfig config, final Duration interval) {
+        final PgSummaryRepairer repairer = new PgSummaryRepairer(config);
+        repairer.scheduler.scheduleWithFixedDelay(
+            repairer::repair,
+            interval.toMillis(),
+            interval.toMillis(),
+            TimeUnit.MILLISECONDS
+        );
+        return repairer;
+    }
+
+    /**
+     * Rebuild all summaries once, one page of accounts at a time.
+     *
+     * @since 1.0
+     */
+    public void repair() {
+        try {
+            final AtomicInteger count = new AtomicInteger();
+            PgAccounts.inPages(
+                this.config,
+                PgSummaryRepairer.PAGE_SIZE,
+                (transaction, ids) -> {
+                    final PgAccountSummaries summaries = new PgAccountSummaries(transaction);
+                    for (final AccountId id : ids) {
+                        count.addAndGet(summaries.rebuild(id));
+                    }
+                }
+            );
+            PgSummaryRepairer.LOGGER.debug("Rebuilt {} account summaries", count.get());
+        } catch (final IllegalStateException exception) {
+            PgSummaryRepairer.LOGGER.error("Rebuilding account summaries failed", exception);
+        }
+    }
+
+    @Override
+    public void close() {
+        this.scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package postgres;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.stream.Stream;
+
+/**
+ * Connections of a transaction, which are all the same connection.
+ *
+ * @since 1.0
+ */
+final class PgTransaction implements PgConnections {
+
+    /**
+     * Connection the transaction runs on.
+     */
+    private final Connection connection;
+
+    /**
+     * Main constructor.
+     *
+     * @param connection Connection the transaction runs on.
+     */
+    PgTransaction(final Connection connection) {
+        this.connection = connection;
+    }
+
+    @Override
+    public <T> T borrow(final Operation<T> operation) throws SQLException {
+        return operation.apply(this.connection);
+    }
+
+    @Override
+    public <T> Stream<T> stream(final Operation<Stream<T>> operation) throws SQLException {
+        return operation.apply(this.connection);
+    }
+}
@@ -0,0 +1,5 @@
+CREATE TABLE IF NOT EXISTS demo.balance_snapshots (
+ account_id VARCHAR(80) NOT NULL PRIMARY KEY REFERENCES accounts(account_id),
+ balance DOUBLE PRECISION NOT NULL,
+ covered_until TIMESTAMP NOT NULL
+);
@@ -0,0 +1,8 @@
+CREATE INDEX IF NOT EXISTS activities_source_time
+ ON demo.activities (source_account, time_stamp, target_account, money);
+
+CREATE INDEX IF NOT EXISTS activities_target_time
+ ON demo.activities (target_account, time_stamp, source_account, money);
+
+CREATE INDEX IF NOT EXISTS activities_time
+ ON demo.activities (time_stamp);
@@ -0,0 +1,49 @@
+ALTER TABLE demo.activities DROP CONSTRAINT IF EXISTS activities_source_account_fkey;
+ALTER TABLE demo.activities DROP CONSTRAINT IF EXISTS activities_target_account_fkey;
+ALTER TABLE demo.balance_snapshots DROP CONSTRAINT IF EXISTS balance_snapshots_account_id_fkey;
+
+ALTER TABLE demo.accounts
+ ALTER COLUMN account_id TYPE UUID USING account_id::UUID,
+ ALTER COLUMN start_balance DROP DEFAULT,
+ ALTER COLUMN start_balance TYPE BIGINT
+  USING ROUND(start_balance * 10 ^ ${money_scale})::BIGINT,
+ ALTER COLUMN start_balance SET DEFAULT 0;
+
+ALTER TABLE demo.activities
+ ALTER COLUMN source_account TYPE UUID USING source_account::UUID,
+ ALTER COLUMN target_account TYPE UUID USING target_account::UUID,
+ ALTER COLUMN money TYPE BIGINT USING ROUND(money * 10 ^ ${money_scale})::BIGINT,
+ ALTER COLUMN activity_id DROP DEFAULT,
+ ALTER COLUMN activity_id TYPE BIGINT;
+
+DROP SEQUENCE IF EXISTS demo.activities_activity_id_seq;
+
+ALTER TABLE demo.activities
+ ALTER COLUMN activity_id ADD GENERATED BY DEFAULT AS IDENTITY;
+
+SELECT setval(
+ pg_get_serial_sequence('demo.activities', 'activity_id'),
+ COALESCE(MAX(activity_id), 0) + 1,
+ false
+) FROM demo.activities;
+
+ALTER TABLE demo.balance_snapshots
+ ALTER COLUMN account_id TYPE UUID USING account_id::UUID,
+ ALTER COLUMN balance TYPE BIGINT USING ROUND(balance * 10 ^ ${money_scale})::BIGINT;
+
+ALTER TABLE demo.activities
+ ADD CONSTRAINT activities_source_account_fkey
+  FOREIGN KEY (source_account) REFERENCES demo.accounts(account_id),
+ ADD CONSTRAINT activities_target_account_fkey
+  FOREIGN KEY (target_account) REFERENCES demo.accounts(account_id);
+
+ALTER TABLE demo.balance_snapshots
+ ADD CONSTRAINT balance_snapshots_account_id_fkey
+  FOREIGN KEY (account_id) REFERENCES demo.accounts(account_id);
+
+CREATE TABLE demo.money_scale (
+ single_row BOOLEAN PRIMARY KEY DEFAULT TRUE CHECK (single_row),
+ scale INT NOT NULL
+);
+
+INSERT INTO demo.money_scale (scale) VALUES (${money_scale});
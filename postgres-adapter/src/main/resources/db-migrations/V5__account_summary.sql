@@ -0,0 +1,45 @@
+CREATE TABLE IF NOT EXISTS demo.account_summary (
+ account_id UUID NOT NULL PRIMARY KEY REFERENCES demo.accounts(account_id),
+ balance BIGINT NOT NULL,
+ activity_count BIGINT NOT NULL DEFAULT 0,
+ latest_source UUID,
+ latest_target UUID,
+ latest_time_stamp TIMESTAMP,
+ latest_money BIGINT
+);
+
+INSERT INTO demo.account_summary
+ (account_id, balance, activity_count,
+  latest_source, latest_target, latest_time_stamp, latest_money)
+SELECT accounts.account_id,
+ accounts.start_balance + COALESCE(moves.moved, 0),
+ COALESCE(moves.activity_count, 0),
+ latest.source_account, latest.target_account, latest.time_stamp, latest.money
+FROM demo.accounts AS accounts
+LEFT OUTER JOIN (
+ SELECT owner,
+  SUM(CASE WHEN target_account = owner THEN money ELSE 0 END)
+  - SUM(CASE WHEN source_account = owner THEN money ELSE 0 END) AS moved,
+  COUNT(*) AS activity_count
+ FROM (
+  SELECT source_account AS owner, source_account, target_account, money
+  FROM demo.activities
+  WHERE source_account IS NOT NULL
+  UNION ALL
+  SELECT target_account, source_account, target_account, money
+  FROM demo.activities
+  WHERE target_account IS NOT NULL AND source_account IS DISTINCT FROM target_account
+ ) AS owned
+ GROUP BY owner
+) AS moves ON moves.owner = accounts.account_id
+LEFT OUTER JOIN LATERAL (
+ (SELECT source_account, target_account, time_stamp, money FROM demo.activities
+  WHERE source_account = accounts.account_id ORDER BY time_stamp DESC LIMIT 1)
+ UNION ALL
+ (SELECT source_account, target_account, time_stamp, money FROM demo.activities
+  WHERE target_account = accounts.account_id
+  AND source_account IS DISTINCT FROM target_account
+  ORDER BY time_stamp DESC LIMIT 1)
+ ORDER BY time_stamp DESC LIMIT 1
+) AS latest ON TRUE
+ON CONFLICT (account_id) DO NOTHING;
@@ -30,7 +30,7 @@ public class MigrationTest {
      */
     @Container
     private static final PostgreSQLContainer<?> CONTAINER =
-        new PostgreSQLContainer<>()
+        new PostgreSQLContainer<>("postgres:13")
             .withDatabaseName("demo")
             .withUsername("postgres")
             .withPassword("postgres");
@@ -57,14 +57,14 @@ public class MigrationTest {
     void migrationTest() {
         Assertions.assertThrows(
             IllegalArgumentException.class,
-            () -> new PgAccounts(MigrationTest.config.connection).findById(AccountId.create())
+            () -> new PgAccounts(MigrationTest.config.connections).findById(AccountId.create())
         );
     }
 
     @Test
     void add() throws IOException, InterruptedException {
         System.out.println(CONTAINER.execInContainer("ls", "/").getStdout());
-        PgAccounts acc = new PgAccounts(MigrationTest.config.connection);
+        PgAccounts acc = new PgAccounts(MigrationTest.config.connections);
         AccountId id = AccountId.create();
         acc.save(Account.with(id, Money.with(200)));
         Assertions.assertEquals((double) acc.findById(id).balance().value(), 200);
@@ -0,0 +1,206 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package postgres;
+
+import domain.entity.Account;
+import domain.value.AccountId;
+import domain.value.Activity;
+import domain.value.Money;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import port.out.AccountSummary;
+
+/**
+ * Account summaries repository tests.
+ *
+ * @since 1.0
+ */
+@Testcontainers
+public class PgAccountSummariesTest {
+
+    /**
+     * Test container.
+     */
+    @Container
+    private static final PostgreSQLContainer<?> CONTAINER = PgDatabase.container();
+
+    /**
+     * Postgres configuration.
+     */
+    private static PgConfig config;
+
+    /**
+     * Initialize configuration.
+     */
+    @BeforeAll
+    static void initConfig() {
+        PgAccountSummariesTest.config = PgDatabase.config(PgAccountSummariesTest.CONTAINER);
+    }
+
+    /**
+     * Empty the tables.
+     */
+    @BeforeEach
+    void clean() {
+        PgDatabase.clean(PgAccountSummariesTest.config);
+    }
+
+    @Test
+    void summarizesAccountsWithoutLoadingTheirActivities() {
+        // @checkstyle MagicNumber (15 lines)
+        final AccountId first = AccountId.create();
+        final AccountId second = AccountId.create();
+        final AccountId idle = AccountId.create();
+        final List<Activity> stored = PgAccountSummariesTest.store(first, second, idle);
+        final Map<AccountId, AccountSummary> summaries = PgAccountSummariesTest.summaries();
+        Assertions.assertEquals(3, summaries.size());
+        Assertions.assertEquals(75, summaries.get(first).balance().value());
+        Assertions.assertEquals(stored.get(1), summaries.get(first).latestActivity().get());
+        Assertions.assertEquals(130, summaries.get(second).balance().value());
+        Assertions.assertEquals(stored.get(0), summaries.get(second).latestActivity().get());
+        Assertions.assertEquals(2, summaries.get(first).activityCount());
+        Assertions.assertEquals(1, summaries.get(second).activityCount());
+        Assertions.assertEquals(10, summaries.get(idle).balance().value());
+        Assertions.assertEquals(0, summaries.get(idle).activityCount());
+        Assertions.assertFalse(summaries.get(idle).latestActivity().isPresent());
+    }
+
+    @Test
+    void summarizesTheBalancesOfTheLoadedAccounts() {
+        PgAccountSummariesTest.store(AccountId.create(), AccountId.create(), AccountId.create());
+        final Map<AccountId, AccountSummary> summaries = PgAccountSummariesTest.summaries();
+        try (Stream<Account> all =
+            new PgAccounts(PgAccountSummariesTest.config.connections).allAccounts()) {
+            all.forEach(
+                account ->
+                    Assertions.assertEquals(
+                        account.balance(),
+                        summaries.get(account.accountId()).balance()
+                    )
+            );
+        }
+    }
+
+    @Test
+    void rebuildsSummariesFromActivities() throws SQLException {
+        // @checkstyle MagicNumber (20 lines)
+        final PgAccounts accounts = new PgAccounts(PgAccountSummariesTest.config.connections);
+        final PgActivities activities = new PgActivities(PgAccountSummariesTest.config.connections);
+        final AccountId id = AccountId.create();
+        final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        accounts.save(Account.with(id, Money.with(100)));
+        final Activity latest = Activity.with(null, id, now, Money.with(20));
+        activities.storeActivity(latest);
+        activities.storeActivity(Activity.with(id, null, now.minusMinutes(1), Money.with(5)));
+        activities.storeActivity(Activity.with(id, id, now.minusMinutes(2), Money.with(7)));
+        PgAccountSummariesTest.assertRebuilt(PgAccountSummariesTest.summaries().get(id), latest);
+        PgAccountSummariesTest.reset(id);
+        Assertions.assertEquals(
+            0,
+            PgAccountSummariesTest.summaries().get(id).balance().value()
+        );
+        try (PgSummaryRepairer repairer =
+            PgSummaryRepairer.start(PgAccountSummariesTest.config, Duration.ofDays(1))) {
+            repairer.repair();
+        }
+        PgAccountSummariesTest.assertRebuilt(PgAccountSummariesTest.summaries().get(id), latest);
+    }
+
+    /**
+     * Store two accounts of 100 and one of 10, a transfer of 30 from the first to the second
+     * covered by a snapshot, then a deposit of 5 to the first.
+     *
+     * @param first First account Id.
+     * @param second Second account Id.
+     * @param idle Id of the account without activities.
+     * @return Transfer and deposit.
+     * @checkstyle MagicNumber (20 lines)
+     */
+    private static List<Activity> store(
+        final AccountId first,
+        final AccountId second,
+        final AccountId idle
+    ) {
+        final PgAccounts accounts = new PgAccounts(PgAccountSummariesTest.config.connections);
+        final PgActivities activities = new PgActivities(PgAccountSummariesTest.config.connections);
+        final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        accounts.save(Account.with(first, Money.with(100)));
+        accounts.save(Account.with(second, Money.with(100)));
+        accounts.save(Account.with(idle, Money.with(10)));
+        final Activity transfer = Activity.with(first, second, now.minusMinutes(2), Money.with(30));
+        activities.storeActivity(transfer);
+        PgDatabase.rollForward(PgAccountSummariesTest.config, now.minusMinutes(1));
+        final Activity deposit = Activity.with(null, first, now, Money.with(5));
+        activities.storeActivity(deposit);
+        return Arrays.asList(transfer, deposit);
+    }
+
+    /**
+     * Check the summary of the account of the rebuild test, started with 100 then changed by
+     * a deposit of 20, a withdrawal of 5 and a transfer to itself.
+     *
+     * @param summary Summary.
+     * @param latest Latest activity of the account.
+     * @checkstyle MagicNumber (5 lines)
+     */
+    private static void assertRebuilt(final AccountSummary summary, final Activity latest) {
+        Assertions.assertEquals(115, summary.balance().value());
+        Assertions.assertEquals(3, summary.activityCount());
+        Assertions.assertEquals(latest, summary.latestActivity().get());
+    }
+
+    /**
+     * Reset the summary of an account as if none of its activities was applied to it.
+     *
+     * @param id Account Id.
+     * @throws SQLException If updating the summary fails.
+     */
+    private static void reset(final AccountId id) throws SQLException {
+        PgAccountSummariesTest.config.connections.borrow(
+            connection -> {
+                try (PreparedStatement stat =
+                    PgRows.prepared(
+                        connection,
+                        String.join(
+                            " ",
+                            "UPDATE demo.account_summary SET balance = 0, activity_count = 0,",
+                            "latest_time_stamp = NULL WHERE account_id = ?"
+                        ),
+                        id.uuid()
+                    )) {
+                    return stat.executeUpdate();
+                }
+            }
+        );
+    }
+
+    /**
+     * Summaries of all the accounts.
+     *
+     * @return Summaries by account Id.
+     */
+    private static Map<AccountId, AccountSummary> summaries() {
+        try (Stream<AccountSummary> all =
+            new PgAccountSummaries(PgAccountSummariesTest.config.connections).all()) {
+            return all.collect(Collectors.toMap(AccountSummary::accountId, Function.identity()));
+        }
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package postgres;
+
+import domain.entity.Account;
+import domain.value.AccountId;
+import domain.value.Activity;
+import domain.value.Horizon;
+import domain.value.Money;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import port.out.AccountsPage;
+
+/**
+ * Accounts repository tests.
+ *
+ * @since 1.0
+ */
+@Testcontainers
+public class PgAccountsTest {
+
+    /**
+     * Test container.
+     */
+    @Container
+    private static final PostgreSQLContainer<?> CONTAINER = PgDatabase.container();
+
+    /**
+     * Postgres configuration.
+     */
+    private static PgConfig config;
+
+    /**
+     * Initialize configuration.
+     */
+    @BeforeAll
+    static void initConfig() {
+        PgAccountsTest.config = PgDatabase.config(PgAccountsTest.CONTAINER);
+    }
+
+    /**
+     * Empty the tables.
+     */
+    @BeforeEach
+    void clean() {
+        PgDatabase.clean(PgAccountsTest.config);
+    }
+
+    @Test
+    void loadsWithinHorizon() {
+        // @checkstyle MagicNumber (11 lines)
+        final PgAccounts accounts = new PgAccounts(PgAccountsTest.config.connections);
+        final PgActivities activities = new PgActivities(PgAccountsTest.config.connections);
+        final AccountId id = AccountId.create();
+        final LocalDateTime now = LocalDateTime.now();
+        accounts.save(Account.with(id, Money.with(200)));
+        activities.storeActivity(Activity.with(null, id, now.minusDays(100), Money.with(50)));
+        activities.storeActivity(Activity.with(null, id, now.minusDays(1), Money.with(25)));
+        final Account account = accounts.findById(id, Horizon.last(Duration.ofDays(90)));
+        Assertions.assertEquals(275, account.balance().value());
+        Assertions.assertEquals(1, account.activities(now.minusDays(90)).count());
+        Assertions.assertEquals(2, account.activities().count());
+    }
+
+    @Test
+    void loadsAllAccountsWithTheirActivities() {
+        // @checkstyle MagicNumber (22 lines)
+        final PgAccounts accounts = new PgAccounts(PgAccountsTest.config.connections);
+        final AccountId first = AccountId.create();
+        final AccountId second = AccountId.create();
+        final LocalDateTime now = LocalDateTime.now();
+        accounts.save(Account.with(first, Money.with(100)));
+        accounts.save(Account.with(second, Money.with(100)));
+        new PgActivities(PgAccountsTest.config.connections).storeActivity(
+            Activity.with(first, second, now.minusMinutes(3), Money.with(30)),
+            Activity.with(second, null, now.minusMinutes(2), Money.with(10)),
+            Activity.with(null, first, now.minusMinutes(1), Money.with(5))
+        );
+        final Map<AccountId, Account> loaded;
+        try (Stream<Account> all = accounts.allAccounts()) {
+            Assertions.assertEquals(1, PgAccountsTest.config.connections.metrics().active());
+            loaded = all.collect(Collectors.toMap(Account::accountId, Function.identity()));
+        }
+        Assertions.assertEquals(0, PgAccountsTest.config.connections.metrics().active());
+        Assertions.assertEquals(2, loaded.size());
+        Assertions.assertEquals(75, loaded.get(first).balance().value());
+        Assertions.assertEquals(2, loaded.get(first).activities().distinct().count());
+        Assertions.assertEquals(120, loaded.get(second).balance().value());
+        Assertions.assertEquals(2, loaded.get(second).activities().distinct().count());
+    }
+
+    @Test
+    void findsAccountsByIdsAtOnce() {
+        // @checkstyle MagicNumber (23 lines)
+        final PgAccounts accounts = new PgAccounts(PgAccountsTest.config.connections);
+        final PgActivities activities = new PgActivities(PgAccountsTest.config.connections);
+        final AccountId first = AccountId.create();
+        final AccountId second = AccountId.create();
+        final AccountId other = AccountId.create();
+        final LocalDateTime now = LocalDateTime.now();
+        accounts.save(Account.with(first, Money.with(100)));
+        accounts.save(Account.with(second, Money.with(50)));
+        accounts.save(Account.with(other, Money.with(10)));
+        activities.storeActivity(Activity.with(first, second, now.minusMinutes(2), Money.with(30)));
+        PgDatabase.rollForward(PgAccountsTest.config, now.minusMinutes(1));
+        activities.storeActivity(Activity.with(other, first, now, Money.with(5)));
+        final Map<AccountId, Account> found = accounts.findByIds(Arrays.asList(second, first));
+        Assertions.assertEquals(Arrays.asList(second, first), new ArrayList<>(found.keySet()));
+        Assertions.assertEquals(75, found.get(first).balance().value());
+        Assertions.assertEquals(1, found.get(first).activities().distinct().count());
+        Assertions.assertEquals(80, found.get(second).balance().value());
+        Assertions.assertEquals(0, found.get(second).activities().count());
+        Assertions.assertTrue(accounts.findByIds(new ArrayList<>(0)).isEmpty());
+        Assertions.assertThrows(
+            IllegalArgumentException.class,
+            () -> accounts.findByIds(Arrays.asList(first, AccountId.create()))
+        );
+    }
+
+    @Test
+    void pagesThroughAccountsInIdOrder() {
+        // @checkstyle MagicNumber (25 lines)
+        final PgAccounts accounts = new PgAccounts(PgAccountsTest.config.connections);
+        final AccountId first = AccountId.create();
+        final AccountId second = AccountId.create();
+        final LocalDateTime now = LocalDateTime.now();
+        accounts.save(Account.with(first, Money.with(100)));
+        accounts.save(Account.with(second, Money.with(100)));
+        accounts.save(Account.with(AccountId.create(), Money.with(10)));
+        new PgActivities(PgAccountsTest.config.connections).storeActivity(
+            Activity.with(first, second, now.minusMinutes(2), Money.with(30)),
+            Activity.with(null, first, now.minusMinutes(1), Money.with(5))
+        );
+        final List<AccountId> ordered;
+        try (Stream<Account> all = accounts.allAccounts()) {
+            ordered = all.map(Account::accountId).collect(Collectors.toList());
+        }
+        final List<Account> paged = PgAccountsTest.pages(accounts, ordered.size());
+        Assertions.assertEquals(3, ordered.size());
+        Assertions.assertEquals(
+            ordered,
+            paged.stream().map(Account::accountId).collect(Collectors.toList())
+        );
+        final Map<AccountId, Account> loaded =
+            paged.stream().collect(Collectors.toMap(Account::accountId, Function.identity()));
+        Assertions.assertEquals(75, loaded.get(first).balance().value());
+        Assertions.assertEquals(130, loaded.get(second).balance().value());
+    }
+
+    @Test
+    void readsAccountsAndTheirActivitiesOnOneSnapshot() {
+        final AccountId id = AccountId.create();
+        PgAccountsTest.assertReadOnOneSnapshot(id, accounts -> accounts.findById(id));
+        PgAccountsTest.assertReadOnOneSnapshot(
+            id,
+            accounts -> accounts.findByIds(Collections.singletonList(id)).get(id)
+        );
+        PgAccountsTest.assertReadOnOneSnapshot(
+            id,
+            accounts -> accounts.page(null, 1).accounts().get(0)
+        );
+        PgAccountsTest.assertReadOnOneSnapshot(
+            id,
+            accounts -> {
+                try (Stream<Account> all = accounts.allAccounts()) {
+                    return all.findFirst().get();
+                }
+            }
+        );
+    }
+
+    /**
+     * Check an account read by two statements is read on one snapshot of the database, its
+     * balance snapshot being rolled forward over its activity between the two.
+     *
+     * @param id Account Id.
+     * @param read Read of the account.
+     * @checkstyle MagicNumber (20 lines)
+     */
+    private static void assertReadOnOneSnapshot(
+        final AccountId id,
+        final Function<PgAccounts, Account> read
+    ) {
+        PgDatabase.clean(PgAccountsTest.config);
+        final LocalDateTime now = LocalDateTime.now();
+        new PgAccounts(PgAccountsTest.config.connections)
+            .save(Account.with(id, Money.with(100)));
+        new PgActivities(PgAccountsTest.config.connections)
+            .storeActivity(Activity.with(null, id, now.minusMinutes(2), Money.with(30)));
+        final Account account =
+            read.apply(new PgAccounts(PgAccountsTest.advancing(now.minusMinutes(1))));
+        Assertions.assertEquals(130, account.balance().value());
+        Assertions.assertEquals(1, account.activities().count());
+    }
+
+    /**
+     * Pooled connections rolling the snapshots forward right before the second statement of
+     * each borrowed connection is prepared.
+     *
+     * @param until Datetime the new snapshots cover.
+     * @return Connections.
+     */
+    private static PgConnections advancing(final LocalDateTime until) {
+        return new PgConnections() {
+            @Override
+            public <T> T borrow(final Operation<T> operation) throws SQLException {
+                return
+                    PgAccountsTest.config.connections.borrow(
+                        connection -> operation.apply(PgAccountsTest.advancing(connection, until))
+                    );
+            }
+
+            @Override
+            public <T> Stream<T> stream(
+                final Operation<Stream<T>> operation
+            ) throws SQLException {
+                return
+                    PgAccountsTest.config.connections.stream(
+                        connection -> operation.apply(PgAccountsTest.advancing(connection, until))
+                    );
+            }
+        };
+    }
+
+    /**
+     * Connection rolling the snapshots forward right before its second statement is prepared,
+     * not counting the statements without parameters or cursor options.
+     *
+     * @param connection Connection.
+     * @param until Datetime the new snapshots cover.
+     * @return Connection.
+     */
+    private static Connection advancing(final Connection connection, final LocalDateTime until) {
+        final AtomicInteger prepared = new AtomicInteger();
+        return (Connection) Proxy.newProxyInstance(
+            Thread.currentThread().getContextClassLoader(),
+            new Class<?>[] {Connection.class},
+            (proxy, method, args) -> {
+                if (method.getName().endsWith("Statement") && args != null
+                    && prepared.incrementAndGet() == 2) {
+                    PgDatabase.rollForward(PgAccountsTest.config, until);
+                }
+                try {
+                    return method.invoke(connection, args);
+                } catch (final InvocationTargetException exception) {
+                    throw exception.getCause();
+                }
+            }
+        );
+    }
+
+    /**
+     * Load all the accounts two by two.
+     *
+     * @param accounts Accounts repository.
+     * @param count Expected number of accounts.
+     * @return Accounts of all the pages, in order.
+     */
+    private static List<Account> pages(final PgAccounts accounts, final int count) {
+        final List<Account> paged = new ArrayList<>(count);
+        AccountsPage page = accounts.page(null, 2);
+        paged.addAll(page.accounts());
+        while (page.next().isPresent()) {
+            page = accounts.page(page.next().get(), 2);
+            paged.addAll(page.accounts());
+        }
+        return paged;
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package postgres;
+
+import domain.entity.Account;
+import domain.value.AccountId;
+import domain.value.Activity;
+import domain.value.Money;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Activities repository tests.
+ *
+ * @since 1.0
+ */
+@Testcontainers
+public class PgActivitiesTest {
+
+    /**
+     * Test container.
+     */
+    @Container
+    private static final PostgreSQLContainer<?> CONTAINER = PgDatabase.container();
+
+    /**
+     * Postgres configuration.
+     */
+    private static PgConfig config;
+
+    /**
+     * Initialize configuration.
+     */
+    @BeforeAll
+    static void initConfig() {
+        PgActivitiesTest.config = PgDatabase.config(PgActivitiesTest.CONTAINER);
+    }
+
+    /**
+     * Empty the tables.
+     */
+    @BeforeEach
+    void clean() {
+        PgDatabase.clean(PgActivitiesTest.config);
+    }
+
+    @Test
+    void looksUpAccountActivitiesThroughIndexes() throws SQLException {
+        // @checkstyle MagicNumber (30 lines)
+        final PgAccounts accounts = new PgAccounts(PgActivitiesTest.config.connections);
+        final List<AccountId> ids = new ArrayList<>(100);
+        for (int idx = 0; idx < 100; idx += 1) {
+            final AccountId id = AccountId.create();
+            accounts.save(Account.with(id, Money.with(1000)));
+            ids.add(id);
+        }
+        final Random random = new Random(42);
+        final LocalDateTime now = LocalDateTime.now();
+        final Activity[] activities = new Activity[20_000];
+        for (int idx = 0; idx < activities.length; idx += 1) {
+            activities[idx] =
+                Activity.with(
+                    ids.get(random.nextInt(ids.size())),
+                    ids.get(random.nextInt(ids.size())),
+                    now.minusSeconds(idx),
+                    Money.with(1)
+                );
+        }
+        new PgActivities(PgActivitiesTest.config.connections).storeActivity(activities);
+        final String plan = PgActivitiesTest.plan(ids.get(0));
+        Assertions.assertFalse(plan.contains("Seq Scan on activities"), plan);
+        Assertions.assertTrue(
+            plan.contains("Index Only Scan using activities_source_time"),
+            plan
+        );
+        Assertions.assertTrue(
+            plan.contains("Index Only Scan using activities_target_time"),
+            plan
+        );
+    }
+
+    @Test
+    void commitsConcurrentActivitiesInGroups() throws Exception {
+        // @checkstyle MagicNumber (33 lines)
+        final PgAccounts accounts = new PgAccounts(PgActivitiesTest.config.connections);
+        final AccountId id = AccountId.create();
+        accounts.save(Account.with(id, Money.with(0)));
+        final List<CompletableFuture<Void>> stored = new ArrayList<>(200);
+        try (PgGroupCommit commit =
+            PgGroupCommit.start(
+                batch ->
+                    PgActivitiesTest.config.inTransaction(
+                        transaction ->
+                            new PgActivities(transaction).storeActivity(
+                                batch.toArray(new Activity[0])
+                            )
+                    ),
+                16,
+                Duration.ZERO
+            )) {
+            for (int idx = 0; idx < 200; idx += 1) {
+                stored.add(
+                    CompletableFuture.runAsync(
+                        () ->
+                            commit.storeActivity(
+                                Activity.with(null, id, LocalDateTime.now(), Money.with(1))
+                            )
+                    )
+                );
+            }
+            CompletableFuture.allOf(stored.toArray(new CompletableFuture<?>[0])).get();
+        }
+        Assertions.assertEquals(
+            200,
+            new PgBalances(PgActivitiesTest.config.connections).balance(id).value()
+        );
+        Assertions.assertEquals(200, accounts.findById(id).balance().value());
+    }
+
+    /**
+     * Plan of the query of the activities of an account, once the table is analyzed.
+     *
+     * @param id Account Id.
+     * @return Plan, one line per node.
+     * @throws SQLException If explaining the query fails.
+     */
+    private static String plan(final AccountId id) throws SQLException {
+        return
+            PgActivitiesTest.config.connections.borrow(
+                connection -> {
+                    try (Statement stat = connection.createStatement()) {
+                        stat.execute("VACUUM ANALYZE demo.activities");
+                    }
+                    final StringBuilder lines = new StringBuilder();
+                    try (PreparedStatement stat =
+                        PgRows.prepared(
+                            connection,
+                            String.format("EXPLAIN %s", PgActivities.LATER),
+                            id.uuid(),
+                            null,
+                            id.uuid(),
+                            null
+                        );
+                        ResultSet result = stat.executeQuery()) {
+                        while (result.next()) {
+                            lines.append(result.getString(1)).append('\n');
+                        }
+                    }
+                    return lines.toString();
+                }
+            );
+    }
+}
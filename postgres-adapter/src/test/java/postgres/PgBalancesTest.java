@@ -0,0 +1,113 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package postgres;
+
+import domain.entity.Account;
+import domain.value.AccountId;
+import domain.value.Activity;
+import domain.value.Money;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Balances repository tests.
+ *
+ * @since 1.0
+ */
+@Testcontainers
+public class PgBalancesTest {
+
+    /**
+     * Test container.
+     */
+    @Container
+    private static final PostgreSQLContainer<?> CONTAINER = PgDatabase.container();
+
+    /**
+     * Postgres configuration.
+     */
+    private static PgConfig config;
+
+    /**
+     * Initialize configuration.
+     */
+    @BeforeAll
+    static void initConfig() {
+        PgBalancesTest.config = PgDatabase.config(PgBalancesTest.CONTAINER);
+    }
+
+    /**
+     * Empty the tables.
+     */
+    @BeforeEach
+    void clean() {
+        PgDatabase.clean(PgBalancesTest.config);
+    }
+
+    @Test
+    void sumsBalancesWithoutLoadingActivities() {
+        // @checkstyle MagicNumber (29 lines)
+        final PgAccounts accounts = new PgAccounts(PgBalancesTest.config.connections);
+        final PgActivities activities = new PgActivities(PgBalancesTest.config.connections);
+        final PgBalances balances = new PgBalances(PgBalancesTest.config.connections);
+        final AccountId first = AccountId.create();
+        final AccountId second = AccountId.create();
+        final LocalDateTime now = LocalDateTime.now();
+        accounts.save(Account.with(first, Money.with(200)));
+        accounts.save(Account.with(second, Money.with(100)));
+        Assertions.assertEquals(200, balances.balance(first).value());
+        activities.storeActivity(
+            Activity.with(first, second, now.minusMinutes(2), Money.with(50)),
+            Activity.with(null, first, now.minusMinutes(1), Money.with(10))
+        );
+        PgDatabase.rollForward(PgBalancesTest.config, now);
+        activities.storeActivity(
+            Activity.with(second, first, now.plusMinutes(1), Money.with(30)),
+            Activity.with(first, first, now.plusMinutes(2), Money.with(5)),
+            Activity.with(first, null, now.plusMinutes(3), Money.with(20))
+        );
+        Assertions.assertEquals(170, balances.balance(first).value());
+        Assertions.assertEquals(120, balances.balance(second).value());
+        Assertions.assertEquals(
+            accounts.findById(first).balance(),
+            balances.balance(first)
+        );
+        Assertions.assertThrows(
+            IllegalArgumentException.class,
+            () -> balances.balance(AccountId.create())
+        );
+    }
+
+    @Test
+    void readsBalancesOfAccountsAtOnce() {
+        // @checkstyle MagicNumber (17 lines)
+        final PgAccounts accounts = new PgAccounts(PgBalancesTest.config.connections);
+        final PgBalances balances = new PgBalances(PgBalancesTest.config.connections);
+        final AccountId first = AccountId.create();
+        final AccountId second = AccountId.create();
+        accounts.save(Account.with(first, Money.with(200)));
+        accounts.save(Account.with(second, Money.with(100)));
+        new PgActivities(PgBalancesTest.config.connections).storeActivity(
+            Activity.with(first, second, LocalDateTime.now(), Money.with(30))
+        );
+        final Map<AccountId, Money> both = balances.balances(Arrays.asList(second, first));
+        Assertions.assertEquals(Arrays.asList(second, first), new ArrayList<>(both.keySet()));
+        Assertions.assertEquals(170, both.get(first).value());
+        Assertions.assertEquals(130, both.get(second).value());
+        Assertions.assertThrows(
+            IllegalArgumentException.class,
+            () -> balances.balances(Arrays.asList(first, AccountId.create()))
+        );
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package postgres;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Postgres configuration tests.
+ *
+ * @since 1.0
+ */
+@Testcontainers
+public class PgConfigTest {
+
+    /**
+     * Test container.
+     */
+    @Container
+    private static final PostgreSQLContainer<?> CONTAINER = PgDatabase.container();
+
+    /**
+     * Postgres configuration.
+     */
+    private static PgConfig config;
+
+    /**
+     * Initialize configuration.
+     */
+    @BeforeAll
+    static void initConfig() {
+        PgConfigTest.config = PgDatabase.config(PgConfigTest.CONTAINER);
+    }
+
+    @Test
+    void refusesAmountsStoredWithAnotherScale() throws SQLException {
+        PgConfigTest.scale("scale + 1");
+        try {
+            Assertions.assertThrows(
+                IllegalStateException.class,
+                () -> PgDatabase.config(PgConfigTest.CONTAINER)
+            );
+        } finally {
+            PgConfigTest.scale("scale - 1");
+        }
+        Assertions.assertNotNull(PgDatabase.config(PgConfigTest.CONTAINER));
+    }
+
+    /**
+     * Change the scale the amounts are stored with.
+     *
+     * @param scale New scale, as an expression of the current one.
+     * @throws SQLException If updating the scale fails.
+     */
+    private static void scale(final String scale) throws SQLException {
+        PgConfigTest.config.connections.borrow(
+            connection -> {
+                try (Statement stat = connection.createStatement()) {
+                    return stat.executeUpdate(
+                        String.format("UPDATE demo.money_scale SET scale = %s", scale)
+                    );
+                }
+            }
+        );
+    }
+}
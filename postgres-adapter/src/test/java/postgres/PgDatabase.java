@@ -0,0 +1,98 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package postgres;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * Test database shared by the repository tests, each test class running its own container.
+ *
+ * @since 1.0
+ */
+final class PgDatabase {
+
+    /**
+     * Owner of the test database, also used as its password.
+     */
+    private static final String OWNER = "postgres";
+
+    /**
+     * Empty all the tables query.
+     */
+    private static final String TRUNCATE =
+        String.join(
+            ", ",
+            String.format("TRUNCATE %s", PgAccounts.TABLE_NAME),
+            PgActivities.TABLE_NAME,
+            PgSnapshots.TABLE_NAME,
+            PgAccountSummaries.TABLE_NAME
+        );
+
+    /**
+     * Utility class.
+     */
+    private PgDatabase() {
+    }
+
+    /**
+     * Container of the test database.
+     *
+     * @return Container, started by the test class declaring it.
+     */
+    static PostgreSQLContainer<?> container() {
+        return
+            new PostgreSQLContainer<>("postgres:13")
+                .withDatabaseName("demo")
+                .withUsername(PgDatabase.OWNER)
+                .withPassword(PgDatabase.OWNER);
+    }
+
+    /**
+     * Configuration of the test database, migrating its schema.
+     *
+     * @param container Started container.
+     * @return Postgres configuration.
+     */
+    static PgConfig config(final PostgreSQLContainer<?> container) {
+        return
+            PgConfig.create(
+                container.getJdbcUrl(),
+                container.getUsername(),
+                container.getPassword()
+            );
+    }
+
+    /**
+     * Empty all the tables, so that each test only sees the rows it stored.
+     *
+     * @param config Postgres configuration.
+     */
+    static void clean(final PgConfig config) {
+        try {
+            config.connections.borrow(
+                connection -> {
+                    try (Statement stat = connection.createStatement()) {
+                        return stat.executeUpdate(PgDatabase.TRUNCATE);
+                    }
+                }
+            );
+        } catch (final SQLException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    /**
+     * Roll the snapshots forward, as the snapshotter does.
+     *
+     * @param config Postgres configuration.
+     * @param until Datetime the new snapshots cover.
+     */
+    static void rollForward(final PgConfig config, final LocalDateTime until) {
+        PgSnapshotter.rollForward(config, until);
+    }
+}
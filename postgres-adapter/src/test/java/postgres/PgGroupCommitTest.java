@@ -0,0 +1,164 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package postgres;
+
+import domain.value.AccountId;
+import domain.value.Activity;
+import domain.value.Money;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Group commit tests, running on a fake writer.
+ *
+ * @since 1.0
+ */
+public class PgGroupCommitTest {
+
+    @Test
+    void writesQueuedActivitiesTogether() throws Exception {
+        // @checkstyle MagicNumber (31 lines)
+        final List<List<Activity>> batches = new CopyOnWriteArrayList<>();
+        final CountDownLatch writing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        try (PgGroupCommit commit =
+            PgGroupCommit.start(
+                batch -> {
+                    batches.add(batch);
+                    writing.countDown();
+                    PgGroupCommitTest.await(release);
+                },
+                8,
+                Duration.ZERO
+            )) {
+            final CompletableFuture<Void> first =
+                CompletableFuture.runAsync(
+                    () -> commit.storeActivity(PgGroupCommitTest.deposit())
+                );
+            writing.await();
+            final List<CompletableFuture<Void>> others = PgGroupCommitTest.deposits(commit, 10);
+            while (commit.queued() < 10) {
+                Thread.yield();
+            }
+            Assertions.assertFalse(first.isDone());
+            release.countDown();
+            CompletableFuture.allOf(others.toArray(new CompletableFuture<?>[0])).get();
+            first.get();
+            Assertions.assertEquals(3, batches.size());
+            Assertions.assertEquals(1, batches.get(0).size());
+            Assertions.assertEquals(8, batches.get(1).size());
+            Assertions.assertEquals(2, batches.get(2).size());
+        }
+    }
+
+    @Test
+    void failsOnlyTheCallersOfUnwritableActivities() throws Exception {
+        // @checkstyle MagicNumber (26 lines)
+        final Activity invalid = PgGroupCommitTest.deposit();
+        final List<Activity> written = new CopyOnWriteArrayList<>();
+        try (PgGroupCommit commit =
+            PgGroupCommit.start(
+                batch -> {
+                    if (batch.contains(invalid)) {
+                        throw new IllegalArgumentException(
+                            new SQLException("Unknown account", "23503")
+                        );
+                    }
+                    written.addAll(batch);
+                },
+                8,
+                Duration.ofMillis(50)
+            )) {
+            final Activity valid = PgGroupCommitTest.deposit();
+            final CompletableFuture<Void> good =
+                CompletableFuture.runAsync(() -> commit.storeActivity(valid));
+            Assertions.assertThrows(
+                IllegalArgumentException.class,
+                () -> commit.storeActivity(invalid)
+            );
+            good.get();
+            Assertions.assertEquals(1, written.size());
+            Assertions.assertEquals(valid, written.get(0));
+        }
+    }
+
+    @Test
+    void failsEveryCallerOfBatchesThatMayHaveBeenWritten() throws Exception {
+        // @checkstyle MagicNumber (22 lines)
+        final List<List<Activity>> batches = new CopyOnWriteArrayList<>();
+        try (PgGroupCommit commit =
+            PgGroupCommit.start(
+                batch -> {
+                    batches.add(batch);
+                    throw new IllegalStateException(
+                        new SQLException("Connection lost while committing", "08006")
+                    );
+                },
+                8,
+                Duration.ofMillis(50)
+            )) {
+            for (final CompletableFuture<Void> stored : PgGroupCommitTest.deposits(commit, 4)) {
+                final ExecutionException failure =
+                    Assertions.assertThrows(ExecutionException.class, stored::get);
+                Assertions.assertTrue(failure.getCause() instanceof IllegalStateException);
+            }
+            Assertions.assertEquals(4, batches.stream().mapToInt(List::size).sum());
+        }
+    }
+
+    /**
+     * Store deposits concurrently.
+     *
+     * @param commit Group commit.
+     * @param count Number of deposits.
+     * @return Futures of the stored deposits.
+     */
+    private static List<CompletableFuture<Void>> deposits(
+        final PgGroupCommit commit,
+        final int count
+    ) {
+        final List<CompletableFuture<Void>> stored = new ArrayList<>(count);
+        for (int idx = 0; idx < count; idx += 1) {
+            stored.add(
+                CompletableFuture.runAsync(
+                    () -> commit.storeActivity(PgGroupCommitTest.deposit())
+                )
+            );
+        }
+        return stored;
+    }
+
+    /**
+     * Activity depositing money into a new account.
+     *
+     * @return Activity.
+     */
+    private static Activity deposit() {
+        return Activity.with(null, AccountId.create(), LocalDateTime.now(), Money.with(1));
+    }
+
+    /**
+     * Wait for a latch.
+     *
+     * @param latch Latch.
+     */
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(exception);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package postgres;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Connection pool tests, running on fake connections.
+ *
+ * @since 1.0
+ */
+public class PgPoolTest {
+
+    @Test
+    void keepsMinimumIdleConnections() {
+        // @checkstyle MagicNumber (6 lines)
+        final AtomicInteger opened = new AtomicInteger();
+        try (PgPool pool = new PgPool(PgPoolTest.factory(opened), 4, 2, Duration.ZERO)) {
+            Assertions.assertEquals(2, opened.get());
+            Assertions.assertEquals(2, pool.metrics().idle());
+            Assertions.assertEquals(0, pool.metrics().active());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("PMD.CloseResource")
+    void reusesGivenBackConnections() throws SQLException {
+        // @checkstyle MagicNumber (8 lines)
+        final AtomicInteger opened = new AtomicInteger();
+        try (PgPool pool = new PgPool(PgPoolTest.factory(opened), 4, 0, Duration.ZERO)) {
+            final Connection first = pool.borrow(connection -> connection);
+            final Connection second = pool.borrow(connection -> connection);
+            Assertions.assertSame(first, second);
+            Assertions.assertEquals(1, opened.get());
+            Assertions.assertEquals(2, pool.metrics().acquisitions());
+        }
+    }
+
+    @Test
+    void holdsConnectionsUntilStreamsAreClosed() throws SQLException {
+        // @checkstyle MagicNumber (10 lines)
+        final AtomicInteger opened = new AtomicInteger();
+        try (PgPool pool = new PgPool(PgPoolTest.factory(opened), 4, 0, Duration.ZERO)) {
+            final Stream<Integer> stream = pool.stream(connection -> Stream.of(1, 2, 3));
+            Assertions.assertEquals(1, pool.metrics().active());
+            Assertions.assertEquals(6, stream.mapToInt(Integer::intValue).sum());
+            Assertions.assertEquals(1, pool.metrics().active());
+            stream.close();
+            Assertions.assertEquals(0, pool.metrics().active());
+            Assertions.assertEquals(1, pool.metrics().idle());
+        }
+    }
+
+    @Test
+    void timesOutWhenAllConnectionsAreInUse() throws Exception {
+        // @checkstyle MagicNumber (30 lines)
+        final AtomicInteger opened = new AtomicInteger();
+        try (PgPool pool = new PgPool(PgPoolTest.factory(opened), 1, 0, Duration.ofMillis(50))) {
+            final CountDownLatch held = new CountDownLatch(1);
+            final CountDownLatch release = new CountDownLatch(1);
+            final CompletableFuture<Void> holder =
+                CompletableFuture.runAsync(
+                    () -> {
+                        try {
+                            pool.borrow(
+                                connection -> {
+                                    held.countDown();
+                                    PgPoolTest.await(release);
+                                    return null;
+                                }
+                            );
+                        } catch (final SQLException ex) {
+                            throw new IllegalStateException(ex);
+                        }
+                    }
+                );
+            held.await();
+            Assertions.assertEquals(1, pool.metrics().active());
+            Assertions.assertThrows(
+                SQLTransientConnectionException.class,
+                () -> pool.borrow(connection -> connection)
+            );
+            release.countDown();
+            holder.join();
+            Assertions.assertEquals(1, pool.metrics().idle());
+        }
+    }
+
+    @Test
+    void replacesClosedConnections() throws SQLException {
+        final AtomicInteger opened = new AtomicInteger();
+        try (PgPool pool = new PgPool(PgPoolTest.factory(opened), 2, 1, Duration.ZERO)) {
+            Assertions.assertThrows(
+                SQLException.class,
+                () -> pool.borrow(
+                    connection -> {
+                        connection.close();
+                        throw new SQLException("Connection lost");
+                    }
+                )
+            );
+            Assertions.assertEquals(2, opened.get());
+            Assertions.assertEquals(1, pool.metrics().idle());
+        }
+    }
+
+    /**
+     * Wait for a latch while holding a connection.
+     *
+     * @param latch Latch.
+     * @throws SQLException If the thread is interrupted.
+     */
+    private static void await(final CountDownLatch latch) throws SQLException {
+        try {
+            latch.await();
+        } catch (final InterruptedException ex) {
+            throw new SQLException(ex);
+        }
+    }
+
+    /**
+     * Factory of fake connections.
+     *
+     * @param opened Number of connections opened.
+     * @return Connection factory.
+     */
+    private static PgPool.Factory factory(final AtomicInteger opened) {
+        return () -> {
+            opened.incrementAndGet();
+            final AtomicBoolean closed = new AtomicBoolean();
+            return (Connection) Proxy.newProxyInstance(
+                Thread.currentThread().getContextClassLoader(),
+                new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                    final Object result;
+                    switch (method.getName()) {
+                        case "close":
+                            closed.set(true);
+                            result = null;
+                            break;
+                        case "isClosed":
+                            result = closed.get();
+                            break;
+                        case "isValid":
+                        case "getAutoCommit":
+                            result = !closed.get();
+                            break;
+                        case "hashCode":
+                            result = System.identityHashCode(proxy);
+                            break;
+                        case "equals":
+                            result = proxy == args[0];
+                            break;
+                        default:
+                            result = null;
+                            break;
+                    }
+                    return result;
+                }
+            );
+        };
+    }
+}
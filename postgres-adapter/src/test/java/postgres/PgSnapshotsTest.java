@@ -0,0 +1,189 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package postgres;
+
+import domain.entity.Account;
+import domain.value.AccountId;
+import domain.value.Activity;
+import domain.value.Money;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Balance snapshots repository tests.
+ *
+ * @since 1.0
+ */
+@Testcontainers
+public class PgSnapshotsTest {
+
+    /**
+     * Test container.
+     */
+    @Container
+    private static final PostgreSQLContainer<?> CONTAINER = PgDatabase.container();
+
+    /**
+     * Number of statements waiting for a lock query.
+     */
+    private static final String WAITING = "SELECT COUNT(*) FROM pg_locks WHERE NOT granted";
+
+    /**
+     * Postgres configuration.
+     */
+    private static PgConfig config;
+
+    /**
+     * Initialize configuration.
+     */
+    @BeforeAll
+    static void initConfig() {
+        PgSnapshotsTest.config = PgDatabase.config(PgSnapshotsTest.CONTAINER);
+    }
+
+    /**
+     * Empty the tables.
+     */
+    @BeforeEach
+    void clean() {
+        // @checkstyle MagicNumber (1 lines)
+        PgDatabase.clean(PgSnapshotsTest.config);
+    }
+
+    @Test
+    void loadsFromSnapshot() {
+        // @checkstyle MagicNumber (14 lines)
+        final PgAccounts accounts = new PgAccounts(PgSnapshotsTest.config.connections);
+        final PgActivities activities = new PgActivities(PgSnapshotsTest.config.connections);
+        final AccountId id = AccountId.create();
+        final LocalDateTime now = LocalDateTime.now();
+        accounts.save(Account.with(id, Money.with(200)));
+        activities.storeActivity(Activity.with(null, id, now.minusMinutes(1), Money.with(50)));
+        PgDatabase.rollForward(PgSnapshotsTest.config, now);
+        activities.storeActivity(Activity.with(null, id, now.plusMinutes(1), Money.with(25)));
+        final Account account = accounts.findById(id);
+        Assertions.assertEquals(275, account.balance().value());
+        Assertions.assertEquals(1, account.activities(now).count());
+        Assertions.assertEquals(250, account.balance(now).value());
+        Assertions.assertEquals(200, account.balance(now.minusMinutes(2)).value());
+        Assertions.assertEquals(2, account.activities().count());
+    }
+
+    @Test
+    void addsLateActivitiesToSnapshot() {
+        // @checkstyle MagicNumber (18 lines)
+        final PgAccounts accounts = new PgAccounts(PgSnapshotsTest.config.connections);
+        final PgActivities activities = new PgActivities(PgSnapshotsTest.config.connections);
+        final AccountId id = AccountId.create();
+        final AccountId other = AccountId.create();
+        final LocalDateTime now = LocalDateTime.now();
+        accounts.save(Account.with(id, Money.with(200)));
+        accounts.save(Account.with(other, Money.with(100)));
+        PgDatabase.rollForward(PgSnapshotsTest.config, now);
+        activities.storeActivity(
+            Activity.with(other, id, now.minusMinutes(1), Money.with(50)),
+            Activity.with(null, id, now.plusMinutes(1), Money.with(25))
+        );
+        Assertions.assertEquals(275, accounts.findById(id).balance().value());
+        Assertions.assertEquals(50, accounts.findById(other).balance().value());
+        PgDatabase.rollForward(PgSnapshotsTest.config, now.plusMinutes(2));
+        Assertions.assertEquals(275, accounts.findById(id).balance().value());
+        Assertions.assertEquals(250, accounts.findById(id).balance(now).value());
+        Assertions.assertEquals(50, accounts.findById(other).balance().value());
+    }
+
+    @Test
+    void storesActivitiesOfOtherAccountsWhileRollingForward() throws Exception {
+        // @checkstyle MagicNumber (20 lines)
+        final PgAccounts accounts = new PgAccounts(PgSnapshotsTest.config.connections);
+        final PgActivities activities = new PgActivities(PgSnapshotsTest.config.connections);
+        final AccountId id = AccountId.create();
+        final AccountId other = AccountId.create();
+        final LocalDateTime now = LocalDateTime.now();
+        accounts.save(Account.with(id, Money.with(200)));
+        accounts.save(Account.with(other, Money.with(100)));
+        PgSnapshotsTest.config.inTransaction(
+            transaction -> {
+                new PgSnapshots(transaction).rollForward(Collections.singletonList(id), now);
+                Assertions.assertTimeoutPreemptively(
+                    Duration.ofSeconds(5),
+                    () -> activities.storeActivity(
+                        Activity.with(null, other, now.minusMinutes(1), Money.with(50))
+                    )
+                );
+            }
+        );
+        Assertions.assertEquals(150, accounts.findById(other).balance().value());
+    }
+
+    @Test
+    void addsActivitiesStoredWhileRollingForward() throws Exception {
+        // @checkstyle MagicNumber (22 lines)
+        final PgAccounts accounts = new PgAccounts(PgSnapshotsTest.config.connections);
+        final PgActivities activities = new PgActivities(PgSnapshotsTest.config.connections);
+        final AccountId id = AccountId.create();
+        final LocalDateTime now = LocalDateTime.now();
+        accounts.save(Account.with(id, Money.with(200)));
+        final AtomicReference<CompletableFuture<Void>> stored = new AtomicReference<>();
+        PgSnapshotsTest.config.inTransaction(
+            transaction -> {
+                new PgSnapshots(transaction).rollForward(Collections.singletonList(id), now);
+                stored.set(
+                    CompletableFuture.runAsync(
+                        () -> activities.storeActivity(
+                            Activity.with(null, id, now.minusMinutes(1), Money.with(50))
+                        )
+                    )
+                );
+                PgSnapshotsTest.awaitLockWait();
+            }
+        );
+        stored.get().get(5, TimeUnit.SECONDS);
+        Assertions.assertEquals(250, accounts.findById(id).balance().value());
+        Assertions.assertEquals(250, accounts.findById(id).balance(now).value());
+    }
+
+    /**
+     * Wait until a statement waits for a row lock.
+     *
+     * @throws IllegalStateException If no statement waits for a lock in time.
+     * @checkstyle MagicNumber (25 lines)
+     */
+    private static void awaitLockWait() throws IllegalStateException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        try {
+            while (PgSnapshotsTest.config.connections.borrow(
+                connection -> {
+                    try (Statement stat = connection.createStatement();
+                        ResultSet result = stat.executeQuery(PgSnapshotsTest.WAITING)) {
+                        result.next();
+                        return result.getInt(1) == 0;
+                    }
+                }
+            )) {
+                if (System.nanoTime() > deadline) {
+                    throw new IllegalStateException("No statement waits for a lock");
+                }
+                Thread.sleep(10);
+            }
+        } catch (final SQLException | InterruptedException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package postgres;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Prepared statement cache tests, running on fake connections.
+ *
+ * @since 1.0
+ */
+public class PgStatementsTest {
+
+    /**
+     * First query.
+     */
+    private static final String FIRST = "SELECT 1";
+
+    /**
+     * Second query.
+     */
+    private static final String SECOND = "SELECT 2";
+
+    /**
+     * Prefix of setter names.
+     */
+    private static final String SETTER = "set";
+
+    /**
+     * Length of the prefix of setter and getter names.
+     */
+    private static final int PREFIX = PgStatementsTest.SETTER.length();
+
+    @Test
+    void reusesClosedStatements() throws SQLException {
+        final AtomicInteger prepared = new AtomicInteger();
+        final PgStatements statements = new PgStatements(2);
+        try (Connection connection = statements.cached(PgStatementsTest.fake(prepared))) {
+            final PreparedStatement first = connection.prepareStatement(PgStatementsTest.FIRST);
+            first.close();
+            final PreparedStatement second =
+                connection.prepareStatement(PgStatementsTest.FIRST);
+            Assertions.assertSame(first, second);
+        }
+        Assertions.assertEquals(1, prepared.get());
+        Assertions.assertEquals(1, statements.hits());
+        Assertions.assertEquals(1, statements.misses());
+    }
+
+    @Test
+    void doesNotShareStatementsInUse() throws SQLException {
+        final AtomicInteger prepared = new AtomicInteger();
+        final PgStatements statements = new PgStatements(2);
+        try (Connection connection = statements.cached(PgStatementsTest.fake(prepared))) {
+            Assertions.assertNotSame(
+                connection.prepareStatement(PgStatementsTest.FIRST),
+                connection.prepareStatement(PgStatementsTest.FIRST)
+            );
+        }
+        Assertions.assertEquals(2, statements.misses());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedStatements() throws SQLException {
+        final AtomicInteger prepared = new AtomicInteger();
+        final PgStatements statements = new PgStatements(2);
+        try (Connection connection = statements.cached(PgStatementsTest.fake(prepared))) {
+            connection.prepareStatement(PgStatementsTest.FIRST).close();
+            connection.prepareStatement(PgStatementsTest.SECOND).close();
+            connection.prepareStatement(PgStatementsTest.FIRST).close();
+            connection.prepareStatement("SELECT 3").close();
+            connection.prepareStatement(PgStatementsTest.FIRST).close();
+            Assertions.assertEquals(1, statements.evictions());
+            Assertions.assertEquals(2, statements.hits());
+            connection.prepareStatement(PgStatementsTest.SECOND).close();
+        }
+        // @checkstyle MagicNumber (1 line)
+        Assertions.assertEquals(4, prepared.get());
+    }
+
+    @Test
+    void resetsReusedStatements() throws SQLException {
+        final PgStatements statements = new PgStatements(2);
+        try (Connection connection =
+            statements.cached(PgStatementsTest.fake(new AtomicInteger()))) {
+            final PreparedStatement first = connection.prepareStatement(PgStatementsTest.FIRST);
+            // @checkstyle MagicNumber (3 lines)
+            first.setFetchSize(256);
+            first.setMaxRows(10);
+            first.setQueryTimeout(5);
+            first.close();
+            final PreparedStatement second =
+                connection.prepareStatement(PgStatementsTest.FIRST);
+            Assertions.assertEquals(0, second.getFetchSize());
+            Assertions.assertEquals(0, second.getMaxRows());
+            Assertions.assertEquals(0, second.getQueryTimeout());
+        }
+    }
+
+    /**
+     * Fake connection preparing fake statements.
+     *
+     * @param prepared Number of statements prepared.
+     * @return Connection.
+     */
+    private static Connection fake(final AtomicInteger prepared) {
+        return
+            (Connection) Proxy.newProxyInstance(
+                Thread.currentThread().getContextClassLoader(),
+                new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                    final Object result;
+                    if ("prepareStatement".equals(method.getName())) {
+                        prepared.incrementAndGet();
+                        result = PgStatementsTest.statement();
+                    } else {
+                        result = null;
+                    }
+                    return result;
+                }
+            );
+    }
+
+    /**
+     * Fake statement, whose getters return what the matching setters were given last.
+     *
+     * @return Statement.
+     */
+    private static PreparedStatement statement() {
+        final Map<String, Object> settings = new HashMap<>(0);
+        return
+            (PreparedStatement) Proxy.newProxyInstance(
+                Thread.currentThread().getContextClassLoader(),
+                new Class<?>[] {PreparedStatement.class},
+                (statement, call, params) -> {
+                    final String name = call.getName();
+                    final Object result;
+                    if (name.startsWith(PgStatementsTest.SETTER) && params.length == 1) {
+                        settings.put(name.substring(PgStatementsTest.PREFIX), params[0]);
+                        result = null;
+                    } else if (name.startsWith("get")) {
+                        result = settings.get(name.substring(PgStatementsTest.PREFIX));
+                    } else {
+                        result = null;
+                    }
+                    return result;
+                }
+            );
+    }
+}
@@ -4,14 +4,29 @@
  */
 package webapp;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import port.in.AsyncBatchTransfer;
+import port.in.AsyncCreateAccount;
+import port.in.AsyncListActivities;
+import port.in.AsyncQueryBalance;
+import port.in.AsyncSendMoney;
+import port.in.BatchTransfer;
 import port.in.CreateAccount;
+import port.in.ListAccountSummaries;
 import port.in.ListAccounts;
 import port.in.ListActivities;
 import port.in.QueryBalance;
 import port.in.SendMoney;
+import port.in.ShardedSendMoney;
 import postgres.PgAdapter;
+import postgres.PgPool;
+import postgres.PgStatements;
+import webapp.config.VirtualThreads;
 
 /**
  * The entry point of the Spring Boot application.
@@ -28,6 +43,27 @@ public class Application {
      */
     private static final PgAdapter PERSISTENCE = PgAdapter.create();
 
+    /**
+     * Number of threads of the asynchronous input ports, unless virtual threads are enabled.
+     */
+    private static final int PORT_THREADS = Integer.getInteger("ports.threads", 32);
+
+    /**
+     * Executor of the asynchronous input ports, so that blocking persistence calls do not
+     * hold request threads, starting a virtual thread per call if they are enabled.
+     */
+    private static final ExecutorService PORTS =
+        VirtualThreads.executor(
+            () -> Executors.newFixedThreadPool(
+                Application.PORT_THREADS,
+                runnable -> {
+                    final Thread thread = new Thread(runnable, "input-ports");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            )
+        );
+
     /**
      * Main method.
      * @param args Command line arguments.
@@ -46,6 +82,16 @@ public class Application {
         return new ListAccounts(Application.PERSISTENCE);
     }
 
+    /**
+     * List account summaries port provider.
+     *
+     * @return List account summaries input port.
+     * @since 1.0
+     */
+    public static ListAccountSummaries listAccountSummaries() {
+        return new ListAccountSummaries(Application.PERSISTENCE);
+    }
+
     /**
      * Create account port provider.
      *
@@ -63,7 +109,7 @@ public class Application {
      * @since 1.0
      */
     public static QueryBalance queryBalance() {
-        return new QueryBalance(Application.PERSISTENCE);
+        return new QueryBalance(Application.PERSISTENCE, Application.PERSISTENCE);
     }
 
     /**
@@ -85,4 +131,108 @@ public class Application {
     public static SendMoney sendMoney() {
         return new SendMoney(Application.PERSISTENCE, Application.PERSISTENCE);
     }
+
+    /**
+     * Create batch transfer input port, sharing the account locks of send money.
+     *
+     * @return Batch transfer input port.
+     * @since 1.0
+     */
+    public static BatchTransfer batchTransfer() {
+        return Application.sendMoney().batchTransfer(Application.PERSISTENCE);
+    }
+
+    /**
+     * Sharded send money input port provider, deposits, withdrawals and batch transfers then
+     * running on its shards instead of taking account locks.
+     *
+     * <p>Only created with the {@code send-money.sharded} property, as it starts a worker
+     * per available processor, and closed with the context. Accounts are then only written
+     * by the worker of their shard, and must not be changed through the locking ports at the
+     * same time.
+     *
+     * @return Send money input port with a single writer per account.
+     * @since 1.0
+     */
+    @Bean
+    @ConditionalOnProperty(name = "send-money.sharded", havingValue = "true")
+    public static ShardedSendMoney shardedSendMoney() {
+        return
+            new ShardedSendMoney(
+                Application.PERSISTENCE,
+                Application.PERSISTENCE,
+                Runtime.getRuntime().availableProcessors(),
+                10_000
+            );
+    }
+
+    /**
+     * Asynchronous create account port provider.
+     *
+     * @return Create account input port running on the ports executor.
+     * @since 1.0
+     */
+    public static AsyncCreateAccount asyncCreateAccount() {
+        return new AsyncCreateAccount(Application.createAccount(), Application.PORTS);
+    }
+
+    /**
+     * Asynchronous send money port provider.
+     *
+     * @return Send money input port running on the ports executor.
+     * @since 1.0
+     */
+    public static AsyncSendMoney asyncSendMoney() {
+        return new AsyncSendMoney(Application.sendMoney(), Application.PORTS);
+    }
+
+    /**
+     * Asynchronous query balance port provider.
+     *
+     * @return Balance query input port running on the ports executor.
+     * @since 1.0
+     */
+    public static AsyncQueryBalance asyncQueryBalance() {
+        return new AsyncQueryBalance(Application.queryBalance(), Application.PORTS);
+    }
+
+    /**
+     * Asynchronous list activities port provider.
+     *
+     * @return List activities input port running on the ports executor.
+     * @since 1.0
+     */
+    public static AsyncListActivities asyncListActivities() {
+        return new AsyncListActivities(Application.listActivities(), Application.PORTS);
+    }
+
+    /**
+     * Asynchronous batch transfer port provider.
+     *
+     * @return Batch transfer input port running on the ports executor.
+     * @since 1.0
+     */
+    public static AsyncBatchTransfer asyncBatchTransfer() {
+        return new AsyncBatchTransfer(Application.batchTransfer(), Application.PORTS);
+    }
+
+    /**
+     * Database connection pool metrics provider.
+     *
+     * @return Current connection pool metrics.
+     * @since 1.0
+     */
+    public static PgPool.Metrics connectionPoolMetrics() {
+        return Application.PERSISTENCE.poolMetrics();
+    }
+
+    /**
+     * Prepared statement cache counters provider.
+     *
+     * @return Prepared statement caches of the pooled connections.
+     * @since 1.0
+     */
+    public static PgStatements statementCaches() {
+        return Application.PERSISTENCE.statements();
+    }
 }
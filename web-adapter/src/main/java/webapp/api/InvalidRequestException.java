@@ -0,0 +1,39 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package webapp.api;
+
+/**
+ * Request the API cannot serve as given, answered with 400.
+ *
+ * @since 1.0
+ */
+public final class InvalidRequestException extends RuntimeException {
+
+    /**
+     * Serial version.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Main constructor.
+     *
+     * @param message Message.
+     * @since 1.0
+     */
+    public InvalidRequestException(final String message) {
+        super(message);
+    }
+
+    /**
+     * Constructor with the cause.
+     *
+     * @param message Message.
+     * @param cause Cause.
+     * @since 1.0
+     */
+    public InvalidRequestException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+}
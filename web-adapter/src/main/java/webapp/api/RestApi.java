@@ -5,14 +5,26 @@
 package webapp.api;
 
 import domain.value.AccountId;
+import domain.value.Activity;
 import domain.value.Money;
-import exception.ConcurrentOperationException;
-import exception.InsufficientFundsException;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import port.in.ShardedSendMoney;
+import port.in.Transfer;
+import postgres.PgPool;
+import postgres.PgStatements;
 import webapp.Application;
 
 /**
@@ -24,22 +36,107 @@ import webapp.Application;
 @RequestMapping("/api/v1/")
 public class RestApi {
 
+    /**
+     * Send money shards, empty unless deposits, withdrawals and batch transfers run on them.
+     */
+    private final Optional<ShardedSendMoney> shards;
+
+    /**
+     * Main constructor.
+     *
+     * @param shards Send money shards, if enabled.
+     * @since 1.0
+     */
+    public RestApi(final Optional<ShardedSendMoney> shards) {
+        this.shards = shards;
+    }
+
     /**
      * Create a new account.
      *
      * @param balance Starting balance.
-     * @return Account Id.
+     * @return Future of the account Id.
      * @since 1.0
      * @checkstyle NonStaticMethodCheck (4 lines)
      */
     @PostMapping("account")
-    public String addAccount(@RequestBody final String balance) {
+    public CompletableFuture<String> addAccount(@RequestBody final String balance) {
         return
             Application
-                .createAccount()
+                .asyncCreateAccount()
                 .create(Money.with(Double.parseDouble(balance)))
-                .accountId()
-                .toString();
+                .thenApply(account -> account.accountId().toString());
+    }
+
+    /**
+     * Get the balance of an account.
+     *
+     * @param account Account Id.
+     * @return Future of the balance.
+     * @since 1.0
+     * @checkstyle NonStaticMethodCheck (4 lines)
+     */
+    @GetMapping("account/{id}/balance")
+    public CompletableFuture<Double> accountBalance(@PathVariable("id") final String account) {
+        return
+            Application
+                .asyncQueryBalance()
+                .getAccountBalance(AccountId.with(account))
+                .thenApply(Money::value);
+    }
+
+    /**
+     * Get the balances of several accounts at once.
+     *
+     * @param accounts Account Ids.
+     * @return Future of the balances by account Id, in the order of the Ids.
+     * @since 1.0
+     * @checkstyle NonStaticMethodCheck (4 lines)
+     */
+    @PostMapping("balances")
+    public CompletableFuture<Map<String, Double>> accountBalances(
+        @RequestBody final List<String> accounts
+    ) {
+        return
+            Application
+                .asyncQueryBalance()
+                .getAccountBalances(
+                    accounts.stream().map(AccountId::with).collect(Collectors.toList())
+                )
+                .thenApply(
+                    balances -> {
+                        final Map<String, Double> result = new LinkedHashMap<>();
+                        balances.forEach(
+                            (account, balance) -> result.put(account.toString(), balance.value())
+                        );
+                        return result;
+                    }
+                );
+    }
+
+    /**
+     * List the activities of an account.
+     *
+     * @param account Account Id.
+     * @return Future of the activities, each with its source and target account Ids, null
+     *  for deposits and withdrawals, its amount and its timestamp.
+     * @since 1.0
+     * @checkstyle NonStaticMethodCheck (4 lines)
+     */
+    @GetMapping("account/{id}/activities")
+    public CompletableFuture<List<Map<String, Object>>> accountActivities(
+        @PathVariable("id") final String account
+    ) {
+        return
+            Application
+                .asyncListActivities()
+                .byAccountId(AccountId.with(account))
+                .thenApply(
+                    activities ->
+                        activities.stream()
+                            .map(RestApi::activity)
+                            .collect(Collectors.toList())
+                );
     }
 
     /**
@@ -47,22 +144,24 @@ public class RestApi {
      *
      * @param account Account Id.
      * @param amount Money deposited.
+     * @return Future completed once the deposit is stored, failed if the account stays locked
+     *  or its shard is overloaded.
      * @since 1.0
-     * @throws InsufficientFundsException If account does not have enough money.
-     * @throws ConcurrentOperationException If the account is concurrently being modified.
-     * @checkstyle NonStaticMethodCheck (4 lines)
      */
     @PostMapping("account/{id}/deposit")
-    public void depositIntoAccount(
+    public CompletableFuture<Void> depositIntoAccount(
         @PathVariable("id") final String account,
         @RequestBody final String amount
-    ) throws InsufficientFundsException, ConcurrentOperationException {
-        Application
-            .sendMoney()
-            .deposit(
-                AccountId.with(account),
-                Money.with(Double.parseDouble(amount))
-            );
+    ) {
+        final AccountId id = AccountId.with(account);
+        final Money money = Money.with(Double.parseDouble(amount));
+        final CompletableFuture<Void> result;
+        if (this.shards.isPresent()) {
+            result = this.shards.get().deposit(id, money);
+        } else {
+            result = Application.asyncSendMoney().deposit(id, money);
+        }
+        return result;
     }
 
     /**
@@ -70,21 +169,101 @@ public class RestApi {
      *
      * @param account Account Id.
      * @param amount Money withdrawn.
+     * @return Future completed once the withdrawal is stored, failed if the account does not
+     *  have enough money, stays locked or its shard is overloaded.
      * @since 1.0
-     * @checkstyle NonStaticMethodCheck (4 lines)
-     * @throws InsufficientFundsException If account does not have enough money.
-     * @throws ConcurrentOperationException If the account is concurrently being modified.
      */
     @PostMapping("account/{id}/withdraw")
-    public void withdrawFromAccount(
+    public CompletableFuture<Void> withdrawFromAccount(
         @PathVariable("id") final String account,
         @RequestBody final String amount
-    ) throws InsufficientFundsException, ConcurrentOperationException {
-        Application
-            .sendMoney()
-            .withdraw(
-                AccountId.with(account),
-                Money.with(Double.parseDouble(amount))
-            );
+    ) {
+        final AccountId id = AccountId.with(account);
+        final Money money = Money.with(Double.parseDouble(amount));
+        final CompletableFuture<Void> result;
+        if (this.shards.isPresent()) {
+            result = this.shards.get().withdraw(id, money);
+        } else {
+            result = Application.asyncSendMoney().withdraw(id, money);
+        }
+        return result;
+    }
+
+    /**
+     * Send money for a batch of transfers, all or nothing.
+     *
+     * @param transfers Transfers, each with its source and target account Ids and amount.
+     * @return Future completed once all the transfers are stored, failed if any source
+     *  account does not have enough money, an account stays locked or a shard is overloaded.
+     * @throws InvalidRequestException If there are no transfers or any of them is invalid.
+     * @since 1.0
+     */
+    @PostMapping("transfers:batch")
+    public CompletableFuture<Void> batchTransfer(
+        @RequestBody final List<TransferRequest> transfers
+    ) throws InvalidRequestException {
+        if (transfers.isEmpty()) {
+            throw new InvalidRequestException("A batch needs at least one transfer");
+        }
+        final List<Transfer> batch = new ArrayList<>(transfers.size());
+        for (final TransferRequest transfer : transfers) {
+            if (transfer == null) {
+                throw new InvalidRequestException("A batch cannot hold an empty transfer");
+            }
+            batch.add(transfer.transfer());
+        }
+        final CompletableFuture<Void> result;
+        if (this.shards.isPresent()) {
+            result = this.shards.get().transfer(batch);
+        } else {
+            result = Application.asyncBatchTransfer().transfer(batch);
+        }
+        return result;
+    }
+
+    /**
+     * Database connection pool metrics.
+     *
+     * @return Connections in use, idle connections, waiting borrowers, connections handed out,
+     *  the total time spent waiting for them in millis and the prepared statement cache
+     *  hits, misses and evictions.
+     * @since 1.0
+     * @checkstyle NonStaticMethodCheck (4 lines)
+     */
+    @GetMapping("metrics/connection-pool")
+    public Map<String, Number> connectionPoolMetrics() {
+        final PgPool.Metrics metrics = Application.connectionPoolMetrics();
+        final PgStatements statements = Application.statementCaches();
+        final Map<String, Number> result = new LinkedHashMap<>();
+        result.put("active", metrics.active());
+        result.put("idle", metrics.idle());
+        result.put("waiters", metrics.waiters());
+        result.put("acquisitions", metrics.acquisitions());
+        result.put("waitedMillis", metrics.waited().toMillis());
+        result.put("statementHits", statements.hits());
+        result.put("statementMisses", statements.misses());
+        result.put("statementEvictions", statements.evictions());
+        return result;
+    }
+
+    /**
+     * Representation of an activity.
+     *
+     * @param activity Activity.
+     * @return Source and target account Ids, amount and timestamp of the activity.
+     */
+    private static Map<String, Object> activity(final Activity activity) {
+        final Map<String, Object> result = new LinkedHashMap<>();
+        result.put(
+            "source",
+            Optional.ofNullable(activity.source).map(AccountId::toString).orElse(null)
+        );
+        result.put(
+            "target",
+            Optional.ofNullable(activity.target).map(AccountId::toString).orElse(null)
+        );
+        result.put("amount", activity.money.value());
+        result.put("timestamp", activity.timestamp.format(DateTimeFormatter.ISO_DATE_TIME));
+        return result;
     }
 }
@@ -0,0 +1,82 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package webapp.api;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import domain.value.AccountId;
+import domain.value.Money;
+import port.in.Transfer;
+
+/**
+ * Transfer of a batch transfer request.
+ *
+ * @since 1.0
+ */
+public final class TransferRequest {
+
+    /**
+     * Source account Id, null if missing.
+     */
+    private final String source;
+
+    /**
+     * Target account Id, null if missing.
+     */
+    private final String target;
+
+    /**
+     * Amount, null if missing.
+     */
+    private final String amount;
+
+    /**
+     * Main constructor.
+     *
+     * @param source Source account Id.
+     * @param target Target account Id.
+     * @param amount Amount.
+     * @since 1.0
+     */
+    @JsonCreator
+    public TransferRequest(
+        @JsonProperty("source") final String source,
+        @JsonProperty("target") final String target,
+        @JsonProperty("amount") final String amount
+    ) {
+        this.source = source;
+        this.target = target;
+        this.amount = amount;
+    }
+
+    /**
+     * Transfer requested.
+     *
+     * @return Transfer.
+     * @throws InvalidRequestException If a field is missing, an account Id is not a UUID or
+     *  the amount is not a number of money.
+     * @since 1.0
+     */
+    public Transfer transfer() throws InvalidRequestException {
+        if (this.source == null || this.target == null || this.amount == null) {
+            throw new InvalidRequestException("A transfer needs a source, a target and an amount");
+        }
+        try {
+            return
+                Transfer.with(
+                    AccountId.with(this.source),
+                    AccountId.with(this.target),
+                    Money.with(Double.parseDouble(this.amount))
+                );
+        } catch (final IllegalArgumentException | ArithmeticException ex) {
+            throw new InvalidRequestException(
+                String.format(
+                    "Invalid transfer of %s from %s to %s", this.amount, this.source, this.target
+                ),
+                ex
+            );
+        }
+    }
+}
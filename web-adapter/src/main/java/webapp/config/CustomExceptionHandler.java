@@ -12,8 +12,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import webapp.api.InvalidRequestException;
 import webapp.api.ResponseError;
 
 /**
@@ -57,6 +59,20 @@ public class CustomExceptionHandler {
         return ResponseEntity.status(error.httpStatus()).body(error);
     }
 
+    /**
+     * Handle requests that are malformed or hold invalid values.
+     *
+     * @param exception Exception.
+     * @return Response entity.
+     * @since 1.0
+     * @checkstyle NonStaticMethodCheck (4 lines)
+     */
+    @ExceptionHandler({InvalidRequestException.class, HttpMessageNotReadableException.class})
+    public ResponseEntity<?> invalidRequest(final Exception exception) {
+        final ResponseError error = CustomExceptionHandler.handleError(exception);
+        return ResponseEntity.status(error.httpStatus()).body(error);
+    }
+
     /**
      * Handle error.
      *
@@ -0,0 +1,87 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package webapp.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Virtual threads execution mode.
+ *
+ * <p>Enabled with the {@code virtual.threads} system property on a JDK that has virtual
+ * threads. Tomcat then serves every request on a new virtual thread, so requests blocked on
+ * Postgres no longer hold a platform thread each. The executor is looked up reflectively,
+ * so that the same Java 8 build runs on both. The mode is experimental, Spring Boot 2.3 not
+ * being tested on JDKs with virtual threads; the {@code VirtualThreadsBenchmark} test
+ * compares it with the platform request threads.
+ *
+ * @since 1.0
+ */
+@Configuration
+@ConditionalOnProperty(name = "virtual.threads", havingValue = "true")
+public class VirtualThreads {
+
+    /**
+     * Whether virtual threads are enabled.
+     */
+    public static final boolean ENABLED = Boolean.getBoolean("virtual.threads");
+
+    /**
+     * Run Tomcat requests on virtual threads.
+     *
+     * @return Protocol handler customizer.
+     * @since 1.0
+     * @checkstyle NonStaticMethodCheck (3 lines)
+     */
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadsProtocolHandler() {
+        return handler -> handler.setExecutor(VirtualThreads.perTask());
+    }
+
+    /**
+     * Executor starting a virtual thread per task if enabled.
+     *
+     * @param fallback Executor used if virtual threads are not enabled.
+     * @return Executor.
+     * @throws IllegalStateException If virtual threads are enabled on a JDK without them.
+     * @since 1.0
+     */
+    @SuppressWarnings("PMD.ProhibitPublicStaticMethods")
+    public static ExecutorService executor(
+        final Supplier<ExecutorService> fallback
+    ) throws IllegalStateException {
+        final ExecutorService result;
+        if (VirtualThreads.ENABLED) {
+            result = VirtualThreads.perTask();
+        } else {
+            result = fallback.get();
+        }
+        return result;
+    }
+
+    /**
+     * Executor starting a virtual thread per task.
+     *
+     * @return Executor.
+     * @throws IllegalStateException If the JDK has no virtual threads.
+     */
+    private static ExecutorService perTask() throws IllegalStateException {
+        try {
+            return
+                (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+        } catch (final NoSuchMethodException | IllegalAccessException
+            | InvocationTargetException exception) {
+            throw new IllegalStateException("Virtual threads need JDK 21 or newer", exception);
+        }
+    }
+}
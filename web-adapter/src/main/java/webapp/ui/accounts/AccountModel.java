@@ -4,9 +4,7 @@
  */
 package webapp.ui.accounts;
 
-import domain.entity.Account;
-import java.time.ZoneOffset;
-import java.util.Comparator;
+import port.out.AccountSummary;
 
 /**
  * Account view Model.
@@ -16,28 +14,28 @@ import java.util.Comparator;
 public final class AccountModel {
 
     /**
-     * Domain model account.
+     * Account summary.
      */
-    private final Account account;
+    private final AccountSummary account;
 
     /**
      * Main constructor.
      *
-     * @param account Account domain model.
+     * @param account Account summary.
      */
-    private AccountModel(final Account account) {
+    private AccountModel(final AccountSummary account) {
         this.account = account;
     }
 
     /**
-     * Create an account view model from account domain model.
+     * Create an account view model from an account summary.
      *
-     * @param account Account domain model.
+     * @param account Account summary.
      * @return Account view model.
      * @since 1.0
      */
     @SuppressWarnings("PMD.ProhibitPublicStaticMethods")
-    public static AccountModel from(final Account account) {
+    public static AccountModel from(final AccountSummary account) {
         return new AccountModel(account);
     }
 
@@ -61,6 +59,16 @@ public final class AccountModel {
         return String.format("%.2f", this.account.balance().value());
     }
 
+    /**
+     * Account number of activities.
+     *
+     * @return String
+     * @since 1.0
+     */
+    String activities() {
+        return String.valueOf(this.account.activityCount());
+    }
+
     /**
      * Account last activity.
      *
@@ -70,8 +78,7 @@ public final class AccountModel {
     ActivityModel lastActivity() {
         return
             this.account
-                .activities()
-                .max(Comparator.comparingLong(v -> v.timestamp.toEpochSecond(ZoneOffset.UTC)))
+                .latestActivity()
                 .map(ActivityModel::from)
                 .orElseGet(ActivityModel::empty);
     }
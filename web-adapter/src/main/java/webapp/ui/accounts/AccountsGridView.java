@@ -14,6 +14,8 @@ import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
 import com.vaadin.flow.router.RouteAlias;
 import com.vaadin.flow.router.RouterLink;
+import java.util.stream.Stream;
+import port.out.AccountSummary;
 import webapp.Application;
 import webapp.ui.layout.MainLayout;
 
@@ -49,16 +51,12 @@ public final class AccountsGridView extends VerticalLayout {
      */
     public AccountsGridView() {
         final Grid<AccountModel> grid = new Grid<>();
-        grid.setDataProvider(
-            DataProvider.fromStream(
-                Application
-                    .listAccounts()
-                    .accounts()
-                    .map(AccountModel::from)
-            )
-        );
+        try (Stream<AccountSummary> accounts = Application.listAccountSummaries().summaries()) {
+            grid.setDataProvider(DataProvider.fromStream(accounts.map(AccountModel::from)));
+        }
         grid.addColumn(AccountModel::accountId).setHeader("Account Id");
         grid.addColumn(AccountModel::balance).setHeader("Balance");
+        grid.addColumn(AccountModel::activities).setHeader("Transactions");
         grid.addColumn(AccountsGridView.TRANSACTION_RENDERER).setHeader("Last Transaction");
         grid.addComponentColumn(new DetailsRouterLink());
         this.addAndExpand(grid);
@@ -0,0 +1,192 @@
+/*
+ * Developed 2020 by m_afattah as a workshop demo.
+ * All rights reserved.
+ */
+package webapp;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency reached by platform and virtual request threads on I/O bound calls.
+ *
+ * <p>Every simulated request waits as long as a slow Postgres round trip while holding a
+ * lock, either a {@code ReentrantLock}, which lets a virtual thread unmount, or a monitor,
+ * which pins it to its carrier thread as the 42.2 JDBC driver did. The platform pool has
+ * the size of the default Tomcat request pool. Run it with
+ * {@code mvn -pl web-adapter test-compile exec:java
+ * -Dexec.classpathScope=test -Dexec.mainClass=webapp.VirtualThreadsBenchmark} on JDK 21
+ * or newer. Older JDKs, without {@code Thread.ofVirtual}, only run the platform threads rows
+ * and skip the others.
+ *
+ * @since 1.0
+ * @checkstyle MagicNumber (200 lines)
+ */
+@SuppressWarnings({"PMD.SystemPrintln", "PMD.UseUtilityClass"})
+public final class VirtualThreadsBenchmark {
+
+    /**
+     * Default Tomcat request threads.
+     */
+    private static final int TOMCAT_THREADS = 200;
+
+    /**
+     * Simulated round trip in milliseconds.
+     */
+    private static final long ROUND_TRIP = 50L;
+
+    /**
+     * Whether the JDK has virtual threads.
+     */
+    private static final boolean SUPPORTED = VirtualThreadsBenchmark.supported();
+
+    /**
+     * Hidden constructor.
+     */
+    private VirtualThreadsBenchmark() {
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args Command line arguments, ignored.
+     * @throws Exception If the benchmark fails.
+     */
+    public static void main(final String... args) throws Exception {
+        System.out.printf(
+            "%-28s %8s %10s %12s%n",
+            "mode",
+            "requests",
+            "peak",
+            "requests/s"
+        );
+        for (final int requests : new int[] {200, 2_000, 10_000}) {
+            VirtualThreadsBenchmark.run(
+                "platform threads",
+                Executors.newFixedThreadPool(VirtualThreadsBenchmark.TOMCAT_THREADS),
+                requests,
+                false
+            );
+            if (VirtualThreadsBenchmark.SUPPORTED) {
+                VirtualThreadsBenchmark.run(
+                    "virtual threads",
+                    VirtualThreadsBenchmark.virtual(),
+                    requests,
+                    false
+                );
+                VirtualThreadsBenchmark.run(
+                    "virtual threads, pinned",
+                    VirtualThreadsBenchmark.virtual(),
+                    requests,
+                    true
+                );
+            }
+        }
+        if (!VirtualThreadsBenchmark.SUPPORTED) {
+            System.out.printf(
+                "virtual threads skipped, Java %s has no Thread.ofVirtual%n",
+                System.getProperty("java.version")
+            );
+        }
+    }
+
+    /**
+     * Run simulated requests and print the concurrency they reached.
+     *
+     * @param mode Mode name.
+     * @param executor Request executor, shut down at the end.
+     * @param requests Number of requests.
+     * @param pinned Whether requests wait inside a monitor.
+     * @throws InterruptedException If interrupted.
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    private static void run(
+        final String mode,
+        final ExecutorService executor,
+        final int requests,
+        final boolean pinned
+    ) throws InterruptedException {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger peak = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(requests);
+        final long start = System.nanoTime();
+        for (int idx = 0; idx < requests; idx += 1) {
+            final Object monitor = new Object();
+            final ReentrantLock lock = new ReentrantLock();
+            executor.execute(
+                () -> {
+                    peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    if (pinned) {
+                        synchronized (monitor) {
+                            VirtualThreadsBenchmark.roundTrip();
+                        }
+                    } else {
+                        lock.lock();
+                        try {
+                            VirtualThreadsBenchmark.roundTrip();
+                        } finally {
+                            lock.unlock();
+                        }
+                    }
+                    running.decrementAndGet();
+                    done.countDown();
+                }
+            );
+        }
+        done.await();
+        final double seconds = (System.nanoTime() - start) / 1e9;
+        executor.shutdown();
+        executor.awaitTermination(1L, TimeUnit.MINUTES);
+        System.out.printf(
+            "%-28s %8d %10d %12.0f%n",
+            mode,
+            requests,
+            peak.get(),
+            requests / seconds
+        );
+    }
+
+    /**
+     * Wait as long as a round trip to Postgres.
+     */
+    private static void roundTrip() {
+        try {
+            Thread.sleep(VirtualThreadsBenchmark.ROUND_TRIP);
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Executor starting a virtual thread per task.
+     *
+     * @return Executor.
+     * @throws ReflectiveOperationException If the JDK has no virtual threads.
+     */
+    private static ExecutorService virtual() throws ReflectiveOperationException {
+        return
+            (ExecutorService) Executors.class
+                .getMethod("newVirtualThreadPerTaskExecutor")
+                .invoke(null);
+    }
+
+    /**
+     * Whether the JDK has virtual threads.
+     *
+     * @return True if it has {@code Thread.ofVirtual}.
+     */
+    private static boolean supported() {
+        boolean result;
+        try {
+            Thread.class.getMethod("ofVirtual");
+            result = true;
+        } catch (final NoSuchMethodException exception) {
+            result = false;
+        }
+        return result;
+    }
+}